@@ -1,46 +1,221 @@
-package perez.ruben.bank.accounts;
-
-import java.util.Objects;
-
-import perez.ruben.bank.exception.OverdraftException;
-
-public class Account {
-
-	protected double balance;
-	protected String owner;
-	
-	public Account(String owner) {
-		setOwner(owner);
-		balance = 0;
-	}
-	
-	public String getOwner() {
-		return owner;
-	}
-
-	public void setOwner(String owner) {
-		Objects.requireNonNull(owner, "The owner may not be null");
-		this.owner = owner;
-	}
-
-	public double getBalance() {
-		return balance;
-	}
-
-	// Synchronized so that changes to the balance are thread-safe
-	public synchronized void deposit(double amount) throws OverdraftException {
-
-		double newBalance = balance + amount;
-		
-		// Assuming "normal" accounts must not overdraft
-		if (newBalance >= 0)
-			balance = newBalance;
-		else
-			throw new OverdraftException(amount, balance);
-	}
-
-	@Override
-	public String toString() {
-		return "Account [owner=" + owner + ", balance=" + balance + "]";
-	}
-}
+package perez.ruben.bank.accounts;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.exception.VelocityLimitException;
+import perez.ruben.bank.owners.OwnerDictionary;
+
+public class Account {
+
+	// Identifiers given to accounts created without an explicit one
+	private static final AtomicLong nextId = new AtomicLong();
+
+	private final long id;
+	// Volatile so that #getBalance, which does not lock, always sees the last committed balance
+	protected volatile double balance;
+	// Sum of the open holds, which count against the limit of the balance but are not posted yet
+	protected volatile double held;
+	protected String owner;
+	private volatile AccountListener listener;
+	private volatile VelocityLimit velocityLimit;
+	// Id of the currency in the default CurrencyRegistry
+	private volatile int currency = CurrencyRegistry.DEFAULT_CURRENCY;
+	
+	public Account(String owner) {
+		this(nextId.getAndIncrement(), owner);
+	}
+
+	// The caller is responsible for the uniqueness of explicit identifiers
+	public Account(long id, String owner) {
+		if (id < 0)
+			throw new IllegalArgumentException("The id may not be negative");
+
+		// Make sure generated identifiers never collide with this one
+		// Only written when it must grow, so accounts created in parallel do not all contend on it
+		if (nextId.get() <= id)
+			nextId.accumulateAndGet(id + 1, Math::max);
+
+		this.id = id;
+		// Without #setOwner, which locks and notifies: nobody can listen to the account yet
+		this.owner = OwnerDictionary.getDefault().intern(Objects.requireNonNull(owner, "The owner may not be null"));
+		balance = 0;
+	}
+
+	public long getId() {
+		return id;
+	}
+	
+	public String getOwner() {
+		return owner;
+	}
+
+	// Synchronized so that listeners (e.g. an owner index) see the changes in order
+	// Owner names are interned, so accounts of the same owner share the same String
+	public synchronized void setOwner(String owner) {
+		Objects.requireNonNull(owner, "The owner may not be null");
+		String oldOwner = this.owner;
+		this.owner = OwnerDictionary.getDefault().intern(owner);
+
+		AccountListener l = listener;
+		if (l != null)
+			l.ownerChanged(this, oldOwner, this.owner);
+	}
+
+	public double getBalance() {
+		return balance;
+	}
+
+	public int getCurrencyId() {
+		return currency;
+	}
+
+	public String getCurrency() {
+		return CurrencyRegistry.getDefault().codeOf(currency);
+	}
+
+	// The currency can only be changed while there is no money in the account (and nothing held)
+	public void setCurrency(String code) {
+		int id = CurrencyRegistry.getDefault().idOf(code);
+		synchronized (balanceLock()) {
+			if (balance != 0 || held != 0)
+				throw new IllegalStateException("The currency of an account with money can not be changed");
+			if (currency == id)
+				return;
+			currency = id;
+			AccountListener l = listener;
+			if (l != null)
+				l.currencyChanged(this, code);
+		}
+	}
+
+	public double getHeld() {
+		return held;
+	}
+
+	// The balance left after the open holds
+	public double getAvailableBalance() {
+		return balance - held;
+	}
+
+	public AccountListener getListener() {
+		return listener;
+	}
+
+	// Only one listener is supported: accounts held by an AccountStore get the store's one
+	public void setListener(AccountListener listener) {
+		this.listener = listener;
+	}
+
+	public VelocityLimit getVelocityLimit() {
+		return velocityLimit;
+	}
+
+	// Withdrawals (and the paying legs of transfers, and holds) beyond the limit are rejected with a VelocityLimitException
+	// The limit keeps the history of the withdrawals, so it may not be shared with other accounts (null removes it)
+	public void setVelocityLimit(VelocityLimit velocityLimit) {
+		synchronized (balanceLock()) {
+			this.velocityLimit = velocityLimit;
+		}
+	}
+
+	public void deposit(double amount) throws OverdraftException {
+		post(amount, null);
+	}
+
+	// Changes the balance by "amount", as one of the legs of a transfer with "counterpart" if it is not null
+	// Synchronized so that changes to the balance are thread-safe
+	protected synchronized void post(double amount, Account counterpart) throws OverdraftException {
+
+		double newBalance = balance + amount;
+		
+		// Assuming "normal" accounts must not overdraft
+		if (newBalance - held >= 0) {
+			checkVelocity(amount);
+			balance = newBalance;
+			notifyBalanceChanged(amount, counterpart);
+		} else
+			throw new OverdraftException(amount, balance);
+	}
+
+	// Must be called with the lock protecting the balance held, so that listeners see the changes in order
+	protected void notifyBalanceChanged(double amount, Account counterpart) {
+		AccountListener l = listener;
+		if (l != null)
+			l.balanceChanged(this, amount, counterpart);
+	}
+
+	// Must be called with the balance lock held, once the rest of the checks of the posting passed
+	protected void checkVelocity(double amount) throws VelocityLimitException {
+		VelocityLimit limit = velocityLimit;
+		if (limit != null && amount < 0 && !limit.tryRecord(-amount))
+			throw new VelocityLimitException(amount, balance, limit.getWindowMillis());
+	}
+
+	// The lock that protects the balance (and the amount held) in #post
+	protected Object balanceLock() {
+		return this;
+	}
+
+	// The lowest balance #post allows
+	protected double minimumBalance() {
+		return 0;
+	}
+
+	// Reserves "amount" until the hold is captured or released
+	// The hold is rejected if the available balance would go below the limit, just like a withdrawal, or if it is
+	// beyond the velocity limit: holds count as withdrawals when they are placed (even if they are released
+	// later), so capturing them is always allowed
+	public Hold placeHold(double amount) throws OverdraftException {
+		if (amount <= 0)
+			throw new IllegalArgumentException("The amount held must be positive");
+
+		synchronized (balanceLock()) {
+			if (balance - held - amount < minimumBalance())
+				throw new OverdraftException(-amount, balance - held);
+			checkVelocity(-amount);
+			held += amount;
+			notifyHeldChanged();
+		}
+		return new Hold(this, amount);
+	}
+
+	// Posts "amount" out of the hold as a withdrawal, which is always allowed because the money was reserved
+	void capture(Hold hold, double amount) {
+		if (amount <= 0)
+			throw new IllegalArgumentException("The amount captured must be positive");
+
+		synchronized (balanceLock()) {
+			hold.take(amount);
+			held -= amount;
+			balance -= amount;
+			notifyBalanceChanged(-amount, null);
+			notifyHeldChanged();
+		}
+	}
+
+	// Returns the amount that was still held
+	double release(Hold hold) {
+		synchronized (balanceLock()) {
+			double amount = hold.take(hold.getRemaining());
+			if (amount > 0) {
+				held -= amount;
+				notifyHeldChanged();
+			}
+			return amount;
+		}
+	}
+
+	private void notifyHeldChanged() {
+		AccountListener l = listener;
+		if (l != null)
+			l.heldChanged(this, held);
+	}
+
+	@Override
+	public String toString() {
+		return "Account [id=" + id + ", owner=" + owner + ", balance=" + balance + "]";
+	}
+}
@@ -0,0 +1,29 @@
+package perez.ruben.bank.accounts;
+
+// Notified of the changes committed to an account
+//
+// Methods are called by the thread making the change while it holds the lock that protects it, so they must
+// be short and must never block. Every change of a given account is notified in the same order it happened.
+public interface AccountListener {
+
+	// The balance changed by "amount", either by a deposit (counterpart is null) or as one of the legs of a transfer
+	default void balanceChanged(Account account, double amount, Account counterpart) {
+	}
+
+	default void ownerChanged(Account account, String oldOwner, String newOwner) {
+	}
+
+	default void overdraftChanged(CheckingAccount account, double overdraft) {
+	}
+
+	default void interestRateChanged(SavingsAccount account, double interestRate) {
+	}
+
+	// The currency changed to "currency" (only accounts with no money can change it)
+	default void currencyChanged(Account account, String currency) {
+	}
+
+	// The sum of the open holds changed to "held" (captures also notify the withdrawal as a balance change)
+	default void heldChanged(Account account, double held) {
+	}
+}
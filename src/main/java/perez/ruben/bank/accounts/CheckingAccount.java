@@ -1,79 +1,131 @@
-package perez.ruben.bank.accounts;
-
-import java.util.Objects;
-
-import perez.ruben.bank.exception.OverdraftException;
-
-public class CheckingAccount extends Account {
-
-	// We assume it will always be negative, so we can compare the balance with this value directly
-	// The account may never have a negative balance lower than this value
-	Double overdraft = 0.0;
-
-	public CheckingAccount(String owner) {
-		super(owner);
-		overdraft = 0.0;
-	}
-
-	public CheckingAccount(String owner, double overdraft) {
-		super(owner);
-		try {
-			setOverdraft(overdraft);
-		} catch (OverdraftException e) {
-			// This can never happen, because the balance is always zero on creation, and overdraft can never be positive
-		}
-	}
-
-	public double getOverdraft() {
-		return overdraft;
-	}
-
-	public void setOverdraft(double newOverdraft) throws OverdraftException {
-		if (newOverdraft > 0) 
-			throw new IllegalArgumentException("Overdraft must be negative");
-
-		synchronized(this.overdraft) {
-			if (newOverdraft < balance)
-				this.overdraft = newOverdraft;
-			else
-				throw new OverdraftException(newOverdraft, balance);
-		}
-	}
-
-	public void deposit(double amount) throws OverdraftException {
-
-		// We must synchronize deposits with changes to the overdraft limit
-		// because deposits may be rejected when the overdraft changes
-		
-		// By synchronizing on "overdraft", and not on the object, we allow to interleave calls to #deposit and calls to #transfer
-		// Otherwise, we could have deadlocks when two accounts transfer to each other concurrently
-		synchronized(this.overdraft) {
-			double newBalance = balance + amount;
-
-			// We may never overdraft beyond the minimum balance
-			if (newBalance >= overdraft)
-				balance = newBalance;
-			else
-				throw new OverdraftException(amount, balance);
-		}
-	}
-
-	public synchronized void transfer(double amount, CheckingAccount otherAccount) throws OverdraftException {
-		Objects.requireNonNull(otherAccount);
-
-		// Make sure we always withdraw first (in case there is an overdraft)
-		if (amount >= 0) {
-			deposit(-amount);
-			otherAccount.deposit(amount);
-		} else {
-			otherAccount.deposit(amount);
-			deposit(-amount);
-		}				
-	}
-
-	@Override
-	public String toString() {
-		return "CheckingAccount [owner=" + owner + ", balance=" + balance + ", overdraft=" + overdraft + "]";
-	}
-
-}
+package perez.ruben.bank.accounts;
+
+import java.util.Objects;
+
+import perez.ruben.bank.currency.FxRateTable;
+import perez.ruben.bank.exception.OverdraftException;
+
+public class CheckingAccount extends Account {
+
+	// We assume it will always be negative, so we can compare the balance with this value directly
+	// The account may never have a negative balance lower than this value
+	volatile double overdraft = 0.0;
+
+	// Protects the balance and the overdraft limit
+	// It must never change: synchronizing on the overdraft value itself let deposits run concurrently with
+	// changes to the limit (and with each other) once the value was replaced
+	private final Object lock = new Object();
+
+	public CheckingAccount(String owner) {
+		super(owner);
+		overdraft = 0.0;
+	}
+
+	public CheckingAccount(String owner, double overdraft) {
+		super(owner);
+		initOverdraft(overdraft);
+	}
+
+	public CheckingAccount(long id, String owner, double overdraft) {
+		super(id, owner);
+		initOverdraft(overdraft);
+	}
+
+	// No lock nor listener is needed while the account is built (the balance is zero and nothing is held), so bulk
+	// creation does not pay for #setOverdraft
+	private void initOverdraft(double overdraft) {
+		if (overdraft > 0)
+			throw new IllegalArgumentException("Overdraft must be negative");
+		this.overdraft = overdraft;
+	}
+
+	public double getOverdraft() {
+		return overdraft;
+	}
+
+	public void setOverdraft(double newOverdraft) throws OverdraftException {
+		if (newOverdraft > 0) 
+			throw new IllegalArgumentException("Overdraft must be negative");
+
+		synchronized(lock) {
+			// Open holds must stay within the new limit
+			if (newOverdraft < balance - held) {
+				this.overdraft = newOverdraft;
+				AccountListener l = getListener();
+				if (l != null)
+					l.overdraftChanged(this, newOverdraft);
+			} else
+				throw new OverdraftException(newOverdraft, balance);
+		}
+	}
+
+	@Override
+	protected Object balanceLock() {
+		return lock;
+	}
+
+	@Override
+	protected double minimumBalance() {
+		return overdraft;
+	}
+
+	@Override
+	protected void post(double amount, Account counterpart) throws OverdraftException {
+
+		// We must synchronize deposits with changes to the overdraft limit
+		// because deposits may be rejected when the overdraft changes
+		
+		// By synchronizing on "lock", and not on the object, we allow to interleave calls to #deposit and calls to #transfer
+		// Otherwise, we could have deadlocks when two accounts transfer to each other concurrently
+		synchronized(lock) {
+			double newBalance = balance + amount;
+
+			// We may never overdraft beyond the minimum balance
+			if (newBalance - held >= overdraft) {
+				checkVelocity(amount);
+				balance = newBalance;
+				notifyBalanceChanged(amount, counterpart);
+			} else
+				throw new OverdraftException(amount, balance);
+		}
+	}
+
+	public synchronized void transfer(double amount, CheckingAccount otherAccount) throws OverdraftException {
+		Objects.requireNonNull(otherAccount);
+		if (otherAccount.getCurrencyId() != getCurrencyId())
+			throw new IllegalArgumentException("Transfers between currencies need an FxRateTable");
+
+		// Make sure we always withdraw first (in case there is an overdraft)
+		if (amount >= 0) {
+			post(-amount, otherAccount);
+			otherAccount.post(amount, this);
+		} else {
+			otherAccount.post(amount, this);
+			post(-amount, otherAccount);
+		}				
+	}
+
+	// "amount" is in the currency of this account, and is deposited in the other one converted with "rates"
+	// Both legs use the same table, which never changes, so the rate can not change between them, and the same
+	// amount, rounded once to the minor unit of this account's currency, so no fraction of a cent is lost
+	public synchronized void transfer(double amount, CheckingAccount otherAccount, FxRateTable rates) throws OverdraftException {
+		Objects.requireNonNull(otherAccount);
+		amount = rates.round(amount, getCurrencyId());
+		double converted = rates.convert(amount, getCurrencyId(), otherAccount.getCurrencyId());
+
+		// Make sure we always withdraw first (in case there is an overdraft)
+		if (amount >= 0) {
+			post(-amount, otherAccount);
+			otherAccount.post(converted, this);
+		} else {
+			otherAccount.post(converted, this);
+			post(-amount, otherAccount);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CheckingAccount [id=" + getId() + ", owner=" + owner + ", balance=" + balance + ", overdraft=" + overdraft + "]";
+	}
+
+}
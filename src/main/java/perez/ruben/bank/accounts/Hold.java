@@ -0,0 +1,59 @@
+package perez.ruben.bank.accounts;
+
+// Funds reserved in an account (e.g. by a card authorization), placed with Account#placeHold
+//
+// The money held counts against the limit of the account until it is captured, in one or several parts,
+// or released. Captures and releases are atomic with the other changes of the account.
+public final class Hold {
+
+	private final Account account;
+	private final double amount;
+	// Guarded by the account's balance lock
+	private volatile double remaining;
+
+	Hold(Account account, double amount) {
+		this.account = account;
+		this.amount = amount;
+		this.remaining = amount;
+	}
+
+	public Account getAccount() {
+		return account;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	// The amount still held (zero once the hold is fully captured or released)
+	public double getRemaining() {
+		return remaining;
+	}
+
+	public boolean isOpen() {
+		return remaining > 0;
+	}
+
+	// Withdraws "amount" (at most the remaining amount) from the account; the rest stays held
+	public void capture(double amount) {
+		account.capture(this, amount);
+	}
+
+	// Frees the amount still held and returns it
+	public double release() {
+		return account.release(this);
+	}
+
+	// Called by the account with its balance lock held
+	double take(double amount) {
+		if (amount < 0 || amount > remaining)
+			throw new IllegalArgumentException("Only the " + remaining + " still held can be taken");
+		remaining -= amount;
+		return amount;
+	}
+
+	@Override
+	public String toString() {
+		return "Hold [account=" + account.getId() + ", amount=" + amount + ", remaining=" + remaining + "]";
+	}
+}
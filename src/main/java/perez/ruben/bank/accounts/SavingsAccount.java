@@ -1,39 +1,49 @@
-package perez.ruben.bank.accounts;
-
-import perez.ruben.bank.exception.OverdraftException;
-
-public class SavingsAccount extends Account {
-
-	private double interestRate;
-
-	public SavingsAccount(String owner, double interestRate) {
-		super(owner);
-		this.interestRate = interestRate;
-	}
-
-	public SavingsAccount(String owner) {
-		this(owner, 0.0);
-	}
-
-	// Checking the interest rate is thread-safe
-	public double getInterestRate() {
-		return interestRate;
-	}
-
-	public void setInterestRate(double interestRate) {
-		this.interestRate = interestRate;
-	}
-
-	public double getInterest() {
-		return balance * interestRate;
-	}
-
-	public void payInterest() throws OverdraftException {
-		deposit(getInterest());
-	}
-
-	@Override
-	public String toString() {
-		return "SavingsAccount [owner=" + owner + ", balance=" + balance + ", interestRate=" + interestRate + "]";
-	}
-}
+package perez.ruben.bank.accounts;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+public class SavingsAccount extends Account {
+
+	private volatile double interestRate;
+
+	public SavingsAccount(String owner, double interestRate) {
+		super(owner);
+		this.interestRate = interestRate;
+	}
+
+	public SavingsAccount(String owner) {
+		this(owner, 0.0);
+	}
+
+	public SavingsAccount(long id, String owner, double interestRate) {
+		super(id, owner);
+		this.interestRate = interestRate;
+	}
+
+	// Checking the interest rate is thread-safe
+	public double getInterestRate() {
+		return interestRate;
+	}
+
+	// Synchronized so that listeners see the changes in order
+	public synchronized void setInterestRate(double interestRate) {
+		this.interestRate = interestRate;
+		AccountListener l = getListener();
+		if (l != null)
+			l.interestRateChanged(this, interestRate);
+	}
+
+	public double getInterest() {
+		return balance * interestRate;
+	}
+
+	// Synchronized with the deposits (see Account#post), so the interest is computed on the balance it is paid on
+	public synchronized void payInterest() throws OverdraftException {
+		deposit(getInterest());
+	}
+
+	@Override
+	public String toString() {
+		return "SavingsAccount [id=" + getId() + ", owner=" + owner + ", balance=" + balance + ", interestRate=" + interestRate + "]";
+	}
+}
@@ -0,0 +1,157 @@
+package perez.ruben.bank.accounts;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+// A CheckingAccount for accounts credited by many threads at once (e.g. the accounts of big merchants)
+//
+// Credits are added without locking to one of several stripes, picked by thread and each on its own cache line,
+// so concurrent credits do not contend. Debits (and holds, and changes to the overdraft or the currency) take the
+// lock, fold the stripes into the balance and then apply the rules of a CheckingAccount, so they are checked
+// against every credit that completed before them and the overdraft is never exceeded.
+//
+// Listeners are notified when credits are folded, under the lock, with their sum and no counterpart: they see
+// the changes in order but lag behind the credits not folded yet. #consolidate folds them on demand.
+public class StripedAccount extends CheckingAccount {
+
+	// Longs per stripe (128 bytes), so that no two stripes share a cache line
+	private static final int PADDING = 16;
+
+	// The sum of the credits of every stripe, as the bits of a double, at index i * PADDING
+	private final AtomicLongArray stripes;
+	private final int mask;
+	// Odd while the stripes are folded, so reads know they may have counted a stripe twice or missed it
+	private volatile int folding;
+
+	public StripedAccount(String owner, double overdraft) {
+		super(owner, overdraft);
+		int n = defaultStripes();
+		stripes = new AtomicLongArray(n * PADDING);
+		mask = n - 1;
+	}
+
+	public StripedAccount(long id, String owner, double overdraft) {
+		this(id, owner, overdraft, defaultStripes());
+	}
+
+	// "stripes" must be a power of two
+	public StripedAccount(long id, String owner, double overdraft, int stripes) {
+		super(id, owner, overdraft);
+		if (stripes <= 0 || Integer.bitCount(stripes) != 1)
+			throw new IllegalArgumentException("The stripes must be a power of two");
+		this.stripes = new AtomicLongArray(stripes * PADDING);
+		mask = stripes - 1;
+	}
+
+	// At least twice the number of cores, so that threads seldom share a stripe
+	private static int defaultStripes() {
+		return Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+	}
+
+	public int getStripes() {
+		return mask + 1;
+	}
+
+	@Override
+	protected void post(double amount, Account counterpart) throws OverdraftException {
+		if (amount > 0) {
+			credit(amount);
+			return;
+		}
+		synchronized (balanceLock()) {
+			fold();
+			super.post(amount, counterpart);
+		}
+	}
+
+	private void credit(double amount) {
+		long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		int stripe = (int) (h >>> 32) & mask;
+		while (true) {
+			int i = stripe * PADDING;
+			long bits = stripes.get(i);
+			if (stripes.compareAndSet(i, bits, Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + amount)))
+				return;
+			// Another thread uses the stripe: move on to the next one
+			stripe = (stripe + 1) & mask;
+		}
+	}
+
+	// Must be called with the lock held
+	private void fold() {
+		folding++;
+		double sum = 0;
+		for (int i = 0; i < stripes.length(); i += PADDING)
+			sum += Double.longBitsToDouble(stripes.getAndSet(i, 0));
+		if (sum != 0)
+			balance += sum;
+		folding++;
+		if (sum != 0)
+			notifyBalanceChanged(sum, null);
+	}
+
+	// Folds the credits into the balance, so that listeners are up to date
+	public void consolidate() {
+		synchronized (balanceLock()) {
+			fold();
+		}
+	}
+
+	private double pending() {
+		double sum = 0;
+		for (int i = 0; i < stripes.length(); i += PADDING)
+			sum += Double.longBitsToDouble(stripes.get(i));
+		return sum;
+	}
+
+	// Without locking, unless the stripes are folded meanwhile
+	// Credits that complete during the read may or may not be included
+	@Override
+	public double getBalance() {
+		int version = folding;
+		if ((version & 1) == 0) {
+			double sum = balance + pending();
+			if (folding == version)
+				return sum;
+		}
+		synchronized (balanceLock()) {
+			return balance + pending();
+		}
+	}
+
+	@Override
+	public double getAvailableBalance() {
+		return getBalance() - held;
+	}
+
+	@Override
+	public Hold placeHold(double amount) throws OverdraftException {
+		synchronized (balanceLock()) {
+			fold();
+			return super.placeHold(amount);
+		}
+	}
+
+	@Override
+	public void setOverdraft(double newOverdraft) throws OverdraftException {
+		synchronized (balanceLock()) {
+			fold();
+			super.setOverdraft(newOverdraft);
+		}
+	}
+
+	@Override
+	public void setCurrency(String code) {
+		synchronized (balanceLock()) {
+			fold();
+			super.setCurrency(code);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "StripedAccount [id=" + getId() + ", owner=" + owner + ", balance=" + getBalance() + ", overdraft=" + overdraft
+				+ ", stripes=" + getStripes() + "]";
+	}
+}
@@ -0,0 +1,91 @@
+package perez.ruben.bank.accounts;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+// Limits the number and the total amount of the withdrawals of an account in a sliding window of time
+//
+// The window is split in "buckets" intervals, kept in a ring of primitive arrays, so checking a withdrawal
+// allocates nothing and costs one pass over the buckets. The window slides one bucket at a time, so it covers
+// between "windowMillis" minus one bucket and "windowMillis" of history.
+//
+// The state is guarded by the balance lock of the account, so every account needs its own instance.
+public class VelocityLimit {
+
+	private final long bucketMillis;
+	private final int maxWithdrawals;
+	private final double maxAmount;
+	private final LongSupplier clock;
+
+	// Interval number, count and amount of every bucket (interval n goes to bucket n % buckets)
+	private final long[] intervals;
+	private final int[] counts;
+	private final double[] amounts;
+
+	public VelocityLimit(long windowMillis, int buckets, int maxWithdrawals, double maxAmount) {
+		this(windowMillis, buckets, maxWithdrawals, maxAmount, System::currentTimeMillis);
+	}
+
+	// "clock" gives the current time in milliseconds
+	public VelocityLimit(long windowMillis, int buckets, int maxWithdrawals, double maxAmount, LongSupplier clock) {
+		if (buckets <= 0 || windowMillis < buckets)
+			throw new IllegalArgumentException("The window must be split in at least one bucket of one millisecond");
+		if (maxWithdrawals < 0 || maxAmount < 0)
+			throw new IllegalArgumentException("The limits may not be negative");
+
+		this.bucketMillis = windowMillis / buckets;
+		this.maxWithdrawals = maxWithdrawals;
+		this.maxAmount = maxAmount;
+		this.clock = Objects.requireNonNull(clock);
+		intervals = new long[buckets];
+		counts = new int[buckets];
+		amounts = new double[buckets];
+		Arrays.fill(intervals, Long.MIN_VALUE);
+	}
+
+	public long getWindowMillis() {
+		return bucketMillis * intervals.length;
+	}
+
+	public int getMaxWithdrawals() {
+		return maxWithdrawals;
+	}
+
+	public double getMaxAmount() {
+		return maxAmount;
+	}
+
+	// Records a withdrawal of "amount" if it is within the limits, and returns whether it was
+	// Must be called with the balance lock of the account held
+	boolean tryRecord(double amount) {
+		long interval = Math.floorDiv(clock.getAsLong(), bucketMillis);
+		long oldest = interval - intervals.length;
+
+		int count = 1;
+		double total = amount;
+		for (int i = 0; i < intervals.length; i++) {
+			if (intervals[i] > oldest) {
+				count += counts[i];
+				total += amounts[i];
+			}
+		}
+		if (count > maxWithdrawals || total > maxAmount)
+			return false;
+
+		int bucket = (int) Math.floorMod(interval, (long) intervals.length);
+		if (intervals[bucket] != interval) {
+			intervals[bucket] = interval;
+			counts[bucket] = 0;
+			amounts[bucket] = 0;
+		}
+		counts[bucket]++;
+		amounts[bucket] += amount;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "VelocityLimit [windowMillis=" + getWindowMillis() + ", maxWithdrawals=" + maxWithdrawals + ", maxAmount=" + maxAmount + "]";
+	}
+}
@@ -0,0 +1,53 @@
+package perez.ruben.bank.currency;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Holds the current FxRateTable and runs cross-currency transfers with it
+//
+// Tables are immutable and replaced as a whole (copy on write), so transfers read the current one without
+// locking, and both legs of a transfer always use the same rate even if the table is replaced meanwhile.
+public class CurrencyExchange {
+
+	private volatile FxRateTable rates;
+
+	public CurrencyExchange() {
+		this(new FxRateTable());
+	}
+
+	public CurrencyExchange(FxRateTable rates) {
+		this.rates = Objects.requireNonNull(rates);
+	}
+
+	public FxRateTable getRates() {
+		return rates;
+	}
+
+	public void setRates(FxRateTable rates) {
+		this.rates = Objects.requireNonNull(rates);
+	}
+
+	// Replaces the table with the result of applying "update" to the current one
+	// Synchronized, so concurrent updates are not lost
+	public synchronized void update(UnaryOperator<FxRateTable> update) {
+		rates = Objects.requireNonNull(update.apply(rates));
+	}
+
+	public void setRate(String from, String to, BigDecimal rate) {
+		update(table -> table.withRate(from, to, rate));
+	}
+
+	// Withdraws "amount" (in the currency of "from") from "from" and deposits it, converted, into "to"
+	public void transfer(CheckingAccount from, CheckingAccount to, double amount) throws OverdraftException {
+		from.transfer(amount, to, rates);
+	}
+
+	@Override
+	public String toString() {
+		return "CurrencyExchange [rates=" + rates + "]";
+	}
+}
@@ -0,0 +1,83 @@
+package perez.ruben.bank.currency;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Gives every currency a compact id, used to index the rates of an FxRateTable, and keeps its number of decimals
+//
+// The default registry starts with EUR, the currency of the accounts that were not given another one.
+public class CurrencyRegistry {
+
+	public static final int DEFAULT_CURRENCY = 0;
+
+	private static final CurrencyRegistry DEFAULT = new CurrencyRegistry();
+
+	static {
+		DEFAULT.register("EUR", 2);
+	}
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	// Codes and decimals by id (guarded by this for writes, published through the volatile references)
+	private volatile String[] codes = new String[16];
+	private volatile int[] decimals = new int[16];
+	private int size;
+
+	// The registry used by all the accounts
+	public static CurrencyRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	// Registers the currency (e.g. "USD" with 2 decimals, "JPY" with 0) and returns its id
+	// Registering a currency again returns its id, if the decimals match
+	public synchronized int register(String code, int decimals) {
+		Objects.requireNonNull(code, "The code may not be null");
+		if (decimals < 0 || decimals > 6)
+			throw new IllegalArgumentException("The decimals must be between 0 and 6");
+
+		Integer id = ids.get(code);
+		if (id != null) {
+			if (this.decimals[id] != decimals)
+				throw new IllegalArgumentException(code + " is already registered with " + this.decimals[id] + " decimals");
+			return id;
+		}
+
+		String[] currentCodes = codes;
+		int[] currentDecimals = this.decimals;
+		if (size == currentCodes.length) {
+			currentCodes = Arrays.copyOf(currentCodes, size * 2);
+			currentDecimals = Arrays.copyOf(currentDecimals, size * 2);
+		}
+		// Publish the code and decimals before the id, so a thread that finds the id always finds them
+		currentCodes[size] = code;
+		currentDecimals[size] = decimals;
+		this.decimals = currentDecimals;
+		codes = currentCodes;
+		ids.put(code, size);
+		return size++;
+	}
+
+	// The id of a registered currency
+	public int idOf(String code) {
+		Integer id = ids.get(code);
+		if (id == null)
+			throw new IllegalArgumentException("Unknown currency " + code);
+		return id;
+	}
+
+	public String codeOf(int id) {
+		String[] current = codes;
+		if (id < 0 || id >= current.length || current[id] == null)
+			throw new IllegalArgumentException("There is no currency with id " + id);
+		return current[id];
+	}
+
+	public int decimalsOf(int id) {
+		codeOf(id);
+		return decimals[id];
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+}
@@ -0,0 +1,129 @@
+package perez.ruben.bank.currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+// Immutable table of exchange rates between the currencies of a registry, indexed by currency id
+//
+// Rates are kept in fixed point with 9 decimals, already scaled to convert minor units (e.g. cents) into minor
+// units, so a conversion is a lookup in an array and an exact integer multiplication, rounded half away from
+// zero to the minor unit of the target currency. Tables are never changed: #withRate returns a new one.
+public final class FxRateTable {
+
+	private static final long SCALE = 1_000_000_000L;
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+
+	private final CurrencyRegistry registry;
+	private final int size;
+	// Rate from currency i to currency j at [i * size + j], 0 if there is none
+	private final long[] rates;
+	// Minor units per unit of every currency
+	private final long[] units;
+
+	public FxRateTable() {
+		this(CurrencyRegistry.getDefault());
+	}
+
+	// An empty table, which only converts between a currency and itself
+	public FxRateTable(CurrencyRegistry registry) {
+		this(registry, 0, new long[0]);
+	}
+
+	private FxRateTable(CurrencyRegistry registry, int oldSize, long[] oldRates) {
+		this.registry = registry;
+		size = Math.max(oldSize, registry.size());
+		rates = new long[size * size];
+		for (int i = 0; i < oldSize; i++)
+			System.arraycopy(oldRates, i * oldSize, rates, i * size, oldSize);
+		units = new long[size];
+		for (int i = 0; i < size; i++)
+			units[i] = POWERS_OF_TEN[registry.decimalsOf(i)];
+	}
+
+	// A copy of this table with the rate (units of "to" per unit of "from") set, e.g. withRate("EUR", "USD", "1.0842")
+	public FxRateTable withRate(String from, String to, String rate) {
+		return withRate(from, to, new BigDecimal(rate));
+	}
+
+	public FxRateTable withRate(String from, String to, BigDecimal rate) {
+		Objects.requireNonNull(rate);
+		if (rate.signum() <= 0)
+			throw new IllegalArgumentException("Rates must be positive");
+
+		int fromId = registry.idOf(from);
+		int toId = registry.idOf(to);
+		if (fromId == toId)
+			throw new IllegalArgumentException("The rate of a currency with itself is always 1");
+
+		FxRateTable table = new FxRateTable(registry, size, rates);
+		BigDecimal minorRate = rate.multiply(BigDecimal.valueOf(table.units[toId]))
+				.divide(BigDecimal.valueOf(table.units[fromId]))
+				.multiply(BigDecimal.valueOf(SCALE))
+				.setScale(0, RoundingMode.HALF_UP);
+		if (minorRate.signum() == 0 || minorRate.toBigInteger().bitLength() > 62)
+			throw new IllegalArgumentException("The rate " + rate + " is out of range");
+		table.rates[fromId * table.size + toId] = minorRate.longValueExact();
+		return table;
+	}
+
+	public CurrencyRegistry getRegistry() {
+		return registry;
+	}
+
+	public boolean hasRate(int from, int to) {
+		return from == to || from < size && to < size && rates[from * size + to] != 0;
+	}
+
+	// Rounds "amount" half away from zero to the minor unit of the currency (e.g. cents)
+	public double round(double amount, int currency) {
+		long unit = POWERS_OF_TEN[registry.decimalsOf(currency)];
+		return (double) Math.round(amount * unit) / unit;
+	}
+
+	// Converts "amount" (rounded to the minor unit of "from") into the currency "to"
+	public double convert(double amount, int from, int to) {
+		if (from == to)
+			return amount;
+		long minor = Math.round(amount * units(from));
+		return (double) convertMinor(minor, from, to) / units[to];
+	}
+
+	// Converts an amount in minor units of "from" into minor units of "to"
+	public long convertMinor(long minor, int from, int to) {
+		if (from == to)
+			return minor;
+		long rate = rate(from, to);
+		long magnitude = Math.abs(minor);
+		// magnitude * rate / SCALE, splitting both factors so no intermediate product overflows
+		long rateUnits = rate / SCALE;
+		long rateFraction = rate % SCALE;
+		long high = magnitude / SCALE;
+		long low = magnitude % SCALE;
+		long result = Math.addExact(Math.multiplyExact(magnitude, rateUnits),
+				Math.addExact(Math.multiplyExact(high, rateFraction), (low * rateFraction + SCALE / 2) / SCALE));
+		return minor < 0 ? -result : result;
+	}
+
+	private long units(int currency) {
+		if (currency < 0 || currency >= size)
+			throw new IllegalArgumentException("There are no rates for the currency with id " + currency);
+		return units[currency];
+	}
+
+	private long rate(int from, int to) {
+		long rate = from < size && to < size && from >= 0 && to >= 0 ? rates[from * size + to] : 0;
+		if (rate == 0)
+			throw new IllegalArgumentException("There is no rate from " + registry.codeOf(from) + " to " + registry.codeOf(to));
+		return rate;
+	}
+
+	@Override
+	public String toString() {
+		int count = 0;
+		for (long rate : rates)
+			if (rate != 0)
+				count++;
+		return "FxRateTable [currencies=" + size + ", rates=" + count + "]";
+	}
+}
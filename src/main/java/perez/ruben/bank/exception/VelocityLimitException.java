@@ -0,0 +1,23 @@
+package perez.ruben.bank.exception;
+
+// A withdrawal rejected because it exceeds the velocity limit of the account, whatever its balance
+public class VelocityLimitException extends OverdraftException {
+
+	private static final long serialVersionUID = -3385027420912744541L;
+
+	private long windowMillis;
+
+	public VelocityLimitException(double amount, double balance, long windowMillis) {
+		super(amount, balance);
+		this.windowMillis = windowMillis;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "VelocityLimitException [amount=" + getAmount() + ", balance=" + getBalance() + ", windowMillis=" + windowMillis + "]";
+	}
+}
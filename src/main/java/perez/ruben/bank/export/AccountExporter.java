@@ -0,0 +1,292 @@
+package perez.ruben.bank.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.store.AccountStore;
+
+// Exports the state of all the accounts of a store, split by ranges of ids in several files written in parallel
+//
+// Every writer encodes the accounts (in order of id) straight into a few direct buffers taken from a pool, and
+// writes them all at once with a gather write when they are full, so no Strings nor boxed numbers are created
+// per account (except for the rare amounts that do not fit in a long once scaled, which use Double#toString).
+public class AccountExporter {
+
+	static final byte[] CSV_HEADER = "id,type,owner,balance,held,limit,currency\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ACCOUNT = "account".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CHECKING = "checking".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SAVINGS = "savings".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] STRIPED = "striped".getBytes(StandardCharsets.US_ASCII);
+	private static final int RATE_DECIMALS = 6;
+	private static final long[] POWERS_OF_TEN = new long[10];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private final BufferPool pool;
+	private final int buffersPerWriter;
+	private final int decimals;
+
+	public AccountExporter() {
+		this(new BufferPool(64 * 1024, 64), 4, 2);
+	}
+
+	// Amounts in CSV files are rounded to "decimals" (interest rates to 6 decimals)
+	public AccountExporter(BufferPool pool, int buffersPerWriter, int decimals) {
+		if (buffersPerWriter <= 0)
+			throw new IllegalArgumentException("Every writer needs at least one buffer");
+		if (decimals < 0 || decimals > RATE_DECIMALS)
+			throw new IllegalArgumentException("The decimals must be between 0 and " + RATE_DECIMALS);
+
+		this.pool = Objects.requireNonNull(pool);
+		this.buffersPerWriter = buffersPerWriter;
+		this.decimals = decimals;
+	}
+
+	// Writes "parts" files named accounts-NNNNN.<extension> in the directory and returns their paths
+	// Part i holds the accounts in the i-th of "parts" ranges of the same size between the lowest and highest ids
+	public List<Path> export(AccountStore store, Path directory, ExportFormat format, int parts) throws IOException {
+		if (parts <= 0)
+			throw new IllegalArgumentException("There must be at least one part");
+
+		Files.createDirectories(directory);
+		List<Path> files = new ArrayList<>(parts);
+		for (int i = 0; i < parts; i++)
+			files.add(directory.resolve(String.format("accounts-%05d.%s", i, format.getExtension())));
+
+		LongSummaryStatistics ids = store.parallelStream().mapToLong(Account::getId).summaryStatistics();
+		long first = ids.getMin();
+		double span = (double) ids.getMax() - first + 1;
+		Map<Integer, List<Account>> byPart = store.parallelStream().collect(Collectors.groupingByConcurrent(
+				a -> (int) Math.min(parts - 1, (a.getId() - first) / span * parts),
+				Collectors.toCollection(ArrayList::new)));
+
+		try {
+			IntStream.range(0, parts).parallel().forEach(i -> {
+				List<Account> accounts = byPart.getOrDefault(i, Collections.emptyList());
+				accounts.sort(Comparator.comparingLong(Account::getId));
+				try {
+					write(files.get(i), accounts, format);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return files;
+	}
+
+	private void write(Path file, List<Account> accounts, ExportFormat format) throws IOException {
+		ByteBuffer[] buffers = new ByteBuffer[buffersPerWriter];
+		byte[] digits = new byte[20];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (int i = 0; i < buffers.length; i++)
+				buffers[i] = pool.acquire();
+
+			int current = 0;
+			if (format == ExportFormat.CSV)
+				buffers[0].put(CSV_HEADER);
+			else
+				buffers[0].putInt(ExportFormat.MAGIC).putInt(ExportFormat.VERSION);
+
+			for (Account account : accounts) {
+				String owner = account.getOwner();
+				String currency = account.getCurrency();
+				// Worst case: every char of the owner and currency takes 3 bytes, and is doubled if it is a quote
+				int needed = 160 + (owner.length() + currency.length()) * 6;
+				if (needed > pool.getBufferSize())
+					throw new IOException("The record of account " + account.getId() + " does not fit in a buffer");
+				if (buffers[current].remaining() < needed && ++current == buffers.length) {
+					flush(channel, buffers);
+					current = 0;
+				}
+
+				if (format == ExportFormat.CSV)
+					encodeCsv(buffers[current], account, owner, currency, digits);
+				else
+					encodeBinary(buffers[current], account, owner, currency);
+			}
+			flush(channel, buffers);
+		} finally {
+			for (ByteBuffer buffer : buffers)
+				if (buffer != null)
+					pool.release(buffer);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+		long remaining = 0;
+		for (ByteBuffer buffer : buffers) {
+			buffer.flip();
+			remaining += buffer.remaining();
+		}
+		while (remaining > 0)
+			remaining -= channel.write(buffers);
+		for (ByteBuffer buffer : buffers)
+			buffer.clear();
+	}
+
+	private void encodeCsv(ByteBuffer buffer, Account account, String owner, String currency, byte[] digits) {
+		putLong(buffer, account.getId(), digits);
+		buffer.put((byte) ',');
+		if (account instanceof StripedAccount)
+			buffer.put(STRIPED);
+		else if (account instanceof CheckingAccount)
+			buffer.put(CHECKING);
+		else if (account instanceof SavingsAccount)
+			buffer.put(SAVINGS);
+		else
+			buffer.put(ACCOUNT);
+		buffer.put((byte) ',');
+		putCsvText(buffer, owner);
+		buffer.put((byte) ',');
+		putDecimal(buffer, account.getBalance(), decimals, digits);
+		buffer.put((byte) ',');
+		putDecimal(buffer, account.getHeld(), decimals, digits);
+		buffer.put((byte) ',');
+		if (account instanceof CheckingAccount)
+			putDecimal(buffer, ((CheckingAccount) account).getOverdraft(), decimals, digits);
+		else if (account instanceof SavingsAccount)
+			putDecimal(buffer, ((SavingsAccount) account).getInterestRate(), RATE_DECIMALS, digits);
+		else
+			buffer.put((byte) '0');
+		buffer.put((byte) ',');
+		putCsvText(buffer, currency);
+		buffer.put((byte) '\n');
+	}
+
+	private static void putCsvText(ByteBuffer buffer, String s) {
+		boolean quoted = false;
+		for (int i = 0; i < s.length() && !quoted; i++) {
+			char c = s.charAt(i);
+			quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (quoted)
+			buffer.put((byte) '"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"')
+				buffer.put((byte) '"');
+			i = putUtf8(buffer, s, i);
+		}
+		if (quoted)
+			buffer.put((byte) '"');
+	}
+
+	private static void encodeBinary(ByteBuffer buffer, Account account, String owner, String currency) throws IOException {
+		buffer.putLong(account.getId());
+		double limit = 0;
+		if (account instanceof StripedAccount) {
+			buffer.put((byte) 'T');
+			limit = ((CheckingAccount) account).getOverdraft();
+		} else if (account instanceof CheckingAccount) {
+			buffer.put((byte) 'C');
+			limit = ((CheckingAccount) account).getOverdraft();
+		} else if (account instanceof SavingsAccount) {
+			buffer.put((byte) 'S');
+			limit = ((SavingsAccount) account).getInterestRate();
+		} else
+			buffer.put((byte) 'A');
+
+		putBinaryText(buffer, owner, account, "owner");
+		buffer.putDouble(account.getBalance());
+		buffer.putDouble(account.getHeld());
+		buffer.putDouble(limit);
+		putBinaryText(buffer, currency, account, "currency");
+	}
+
+	// Unsigned short length and UTF-8 bytes
+	private static void putBinaryText(ByteBuffer buffer, String s, Account account, String field) throws IOException {
+		int lengthPosition = buffer.position();
+		buffer.putShort((short) 0);
+		for (int i = 0; i < s.length(); i++)
+			i = putUtf8(buffer, s, i);
+		int length = buffer.position() - lengthPosition - 2;
+		if (length > 0xffff)
+			throw new IOException("The " + field + " of account " + account.getId() + " is too long");
+		buffer.putShort(lengthPosition, (short) length);
+	}
+
+	// Encodes the char at "i" (with the next one, for surrogate pairs) and returns the index of the last char used
+	private static int putUtf8(ByteBuffer buffer, String s, int i) {
+		char c = s.charAt(i);
+		if (c < 0x80)
+			buffer.put((byte) c);
+		else if (c < 0x800)
+			buffer.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+		else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+			int cp = Character.toCodePoint(c, s.charAt(i + 1));
+			buffer.put((byte) (0xf0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3f))
+					.put((byte) (0x80 | cp >> 6 & 0x3f)).put((byte) (0x80 | cp & 0x3f));
+			return i + 1;
+		} else if (Character.isSurrogate(c))
+			buffer.put((byte) '?');
+		else
+			buffer.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+		return i;
+	}
+
+	private static void putDecimal(ByteBuffer buffer, double value, int decimals, byte[] digits) {
+		long scale = POWERS_OF_TEN[decimals];
+		if (Double.isNaN(value) || Math.abs(value) * scale >= 9e18) {
+			buffer.put(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+
+		long scaled = Math.round(value * scale);
+		if (scaled < 0) {
+			buffer.put((byte) '-');
+			scaled = -scaled;
+		}
+		putLong(buffer, scaled / scale, digits);
+		if (decimals > 0) {
+			buffer.put((byte) '.');
+			long fraction = scaled % scale;
+			for (long p = scale / 10; p > 0; p /= 10)
+				buffer.put((byte) ('0' + fraction / p % 10));
+		}
+	}
+
+	// "value" may not be Long.MIN_VALUE
+	private static void putLong(ByteBuffer buffer, long value, byte[] digits) {
+		if (value < 0) {
+			buffer.put((byte) '-');
+			value = -value;
+		}
+		int n = digits.length;
+		do {
+			digits[--n] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		buffer.put(digits, n, digits.length - n);
+	}
+
+	@Override
+	public String toString() {
+		return "AccountExporter [pool=" + pool + ", buffersPerWriter=" + buffersPerWriter + ", decimals=" + decimals + "]";
+	}
+}
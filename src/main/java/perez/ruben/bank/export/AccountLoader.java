@@ -0,0 +1,372 @@
+package perez.ruben.bank.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.store.AccountStore;
+import perez.ruben.bank.store.StoreListener;
+
+// Loads accounts in bulk from CSV files in the format written by the AccountExporter (e.g. a migrated portfolio)
+//
+// The files are mapped into memory and split into chunks of lines that are parsed, validated and turned into
+// accounts in parallel, straight from the mapped bytes. Nothing is published until every line was accepted: the
+// accounts are then added (in parallel too) to a new store sized for them, so a load either returns a store
+// with all the accounts or fails with the first invalid line and leaves nothing behind.
+//
+// Accounts are loaded without holds (a non-zero amount held is rejected), and their currencies must be registered
+// in the default CurrencyRegistry. Owners may not contain line breaks, since chunks are split at them.
+public class AccountLoader {
+
+	private static final byte[] ACCOUNT = "account".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CHECKING = "checking".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SAVINGS = "savings".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] STRIPED = "striped".getBytes(StandardCharsets.US_ASCII);
+	// Longest line accepted, which may go on past the end of its chunk
+	private static final int MAX_LINE = 1 << 20;
+	// Exact powers of ten as doubles
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private final int chunkSize;
+
+	public AccountLoader() {
+		this(64 << 20);
+	}
+
+	// "chunkSize" is the number of bytes of a file parsed by one task
+	public AccountLoader(int chunkSize) {
+		if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE - MAX_LINE - 1)
+			throw new IllegalArgumentException("Invalid chunk size " + chunkSize);
+		this.chunkSize = chunkSize;
+	}
+
+	public AccountStore load(Path file, StoreListener... listeners) throws IOException {
+		return load(Collections.singletonList(file), listeners);
+	}
+
+	// Loads the accounts of all the files (e.g. the parts of an export) into a new store
+	// The listeners (e.g. a new OwnerIndex or BalanceTree) are added to the store and given all the accounts, in
+	// parallel. A listener that rejects an account fails the load, but keeps the accounts it was given before.
+	public AccountStore load(List<Path> files, StoreListener... listeners) throws IOException {
+		List<FileChannel> channels = new ArrayList<>(files.size());
+		List<Chunk> chunks = new ArrayList<>();
+		try {
+			for (Path file : files) {
+				FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+				channels.add(channel);
+				long size = channel.size();
+				for (long start = 0; start == 0 || start < size; start += chunkSize)
+					chunks.add(new Chunk(file, channel, start, Math.min(size, start + chunkSize), size));
+			}
+
+			try {
+				chunks.parallelStream().forEach(Chunk::parse);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		} finally {
+			for (FileChannel channel : channels)
+				channel.close();
+		}
+
+		// Lines are numbered once every chunk knows how many it has
+		int accounts = 0;
+		long line = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			Chunk chunk = chunks.get(i);
+			if (chunk.start == 0)
+				line = 0;
+			if (chunk.error != null)
+				throw new IOException(chunk.file + ":" + (line + chunk.lines) + ": " + chunk.error);
+			line += chunk.lines;
+			accounts += chunk.accounts.size();
+		}
+
+		AccountStore store = new AccountStore(accounts);
+		try {
+			chunks.parallelStream().forEach(chunk -> chunk.accounts.forEach(store::add));
+		} catch (IllegalArgumentException e) {
+			// The store is dropped, so the accounts added before the duplicate are not published either
+			throw new IOException(e.getMessage(), e);
+		}
+		for (StoreListener l : listeners) {
+			store.addListener(l);
+			store.parallelStream().forEach(l::accountAdded);
+		}
+		return store;
+	}
+
+	// The lines that start in a range of bytes of a file
+	private static final class Chunk {
+		private final Path file;
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final long fileSize;
+		private final List<Account> accounts;
+		// Lines parsed (the one that failed included), and the reason of the failure
+		private int lines;
+		private String error;
+
+		private ByteBuffer buffer;
+		private long mapStart;
+		private int position;
+		private byte[] scratch = new byte[64];
+
+		Chunk(Path file, FileChannel channel, long start, long end, long fileSize) {
+			this.file = file;
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.fileSize = fileSize;
+			// About 40 bytes per line
+			accounts = new ArrayList<>((int) ((end - start) / 40) + 1);
+		}
+
+		void parse() {
+			// Mapped from the byte before the chunk, to know whether a line starts right at its beginning
+			mapStart = Math.max(0, start - 1);
+			long to = Math.min(fileSize, end + MAX_LINE);
+			try {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, to - mapStart);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			int limit = buffer.limit();
+			int chunkEnd = (int) (end - mapStart);
+
+			position = 0;
+			if (start > 0) {
+				while (position < limit && buffer.get(position) != '\n')
+					position++;
+				position++;
+			}
+
+			try {
+				if (start == 0) {
+					lines++;
+					header();
+				}
+				while (position < chunkEnd && position < limit) {
+					lines++;
+					if (buffer.get(position) == '\n' || buffer.get(position) == '\r' && peek(1) == '\n') {
+						// Blank lines are skipped
+						lineEnd();
+						continue;
+					}
+					accounts.add(account());
+					lineEnd();
+				}
+			} catch (IllegalArgumentException e) {
+				error = e.getMessage();
+			} catch (OverdraftException e) {
+				error = "The balance is beyond the limit of the account";
+			} finally {
+				buffer = null;
+			}
+		}
+
+		private void header() {
+			byte[] header = AccountExporter.CSV_HEADER;
+			for (int i = 0; i < header.length - 1; i++)
+				if (next() != header[i])
+					throw new IllegalArgumentException("The header must be " + new String(header, StandardCharsets.US_ASCII).trim());
+			lineEnd();
+		}
+
+		private Account account() throws OverdraftException {
+			long id = integer();
+			comma();
+			byte type = type();
+			comma();
+			String owner = text("owner");
+			comma();
+			double balance = decimal();
+			comma();
+			double held = decimal();
+			comma();
+			double limit = decimal();
+			comma();
+			String currency = text("currency");
+
+			if (!Double.isFinite(balance) || !Double.isFinite(limit))
+				throw new IllegalArgumentException("Invalid amount");
+			if (held != 0)
+				throw new IllegalArgumentException("Holds can not be loaded");
+			Account account;
+			if (type == 'T')
+				account = new StripedAccount(id, owner, limit);
+			else if (type == 'C')
+				account = new CheckingAccount(id, owner, limit);
+			else if (type == 'S')
+				account = new SavingsAccount(id, owner, limit);
+			else {
+				if (limit != 0)
+					throw new IllegalArgumentException("Accounts have no limit");
+				account = new Account(id, owner);
+			}
+			// Rejected if the currency is not registered
+			account.setCurrency(currency);
+			// Rejected if it is beyond the limit of the account
+			if (balance != 0)
+				account.deposit(balance);
+			// Published with the credit folded into the balance, so listeners are not told about it again
+			if (account instanceof StripedAccount)
+				((StripedAccount) account).consolidate();
+			return account;
+		}
+
+		private byte type() {
+			if (matches(CHECKING))
+				return 'C';
+			if (matches(SAVINGS))
+				return 'S';
+			if (matches(STRIPED))
+				return 'T';
+			if (matches(ACCOUNT))
+				return 'A';
+			throw new IllegalArgumentException("Unknown type of account");
+		}
+
+		private boolean matches(byte[] word) {
+			for (int i = 0; i < word.length; i++)
+				if (peek(i) != word[i])
+					return false;
+			position += word.length;
+			return true;
+		}
+
+		// A field that may be quoted, like the owner
+		private String text(String field) {
+			int n = 0;
+			if (peek(0) == '"') {
+				position++;
+				while (true) {
+					byte b = next();
+					if (b == '\n' || position > buffer.limit())
+						throw new IllegalArgumentException("Unterminated " + field + " (fields may not contain line breaks)");
+					if (b == '"') {
+						if (peek(0) != '"')
+							break;
+						position++;
+					}
+					n = put(n, b);
+				}
+			} else {
+				while (peek(0) != ',' && peek(0) != '\n' && peek(0) != '\r' && position < buffer.limit())
+					n = put(n, next());
+			}
+			return new String(scratch, 0, n, StandardCharsets.UTF_8);
+		}
+
+		private int put(int n, byte b) {
+			if (n == scratch.length)
+				scratch = Arrays.copyOf(scratch, n * 2);
+			scratch[n] = b;
+			return n + 1;
+		}
+
+		private long integer() {
+			int from = position;
+			long value = 0;
+			while (peek(0) >= '0' && peek(0) <= '9') {
+				if (position - from == 18)
+					throw new IllegalArgumentException("Invalid id");
+				value = value * 10 + next() - '0';
+			}
+			if (position == from)
+				throw new IllegalArgumentException("Invalid id");
+			return value;
+		}
+
+		// Exact for up to 15 significant digits (mantissa and power of ten are both exact doubles, and their
+		// quotient is correctly rounded); other numbers are left to Double#parseDouble
+		private double decimal() {
+			int from = position;
+			boolean negative = peek(0) == '-';
+			if (negative)
+				position++;
+			long mantissa = 0;
+			int digits = 0;
+			int scale = -1;
+			while (true) {
+				byte b = peek(0);
+				if (b >= '0' && b <= '9') {
+					if (digits < 18)
+						mantissa = mantissa * 10 + b - '0';
+					digits++;
+					if (scale >= 0)
+						scale++;
+				} else if (b == '.' && scale < 0)
+					scale = 0;
+				else
+					break;
+				position++;
+			}
+
+			byte b = peek(0);
+			if (digits == 0 || digits > 15 || scale >= POWERS_OF_TEN.length || b != ',' && b != '\n' && b != '\r'
+					&& position < buffer.limit()) {
+				while (peek(0) != ',' && peek(0) != '\n' && peek(0) != '\r' && position < buffer.limit())
+					position++;
+				byte[] text = new byte[position - from];
+				for (int i = 0; i < text.length; i++)
+					text[i] = buffer.get(from + i);
+				// NumberFormatException is an IllegalArgumentException
+				return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+			}
+			double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+			return negative ? -value : value;
+		}
+
+		private void comma() {
+			if (next() != ',')
+				throw new IllegalArgumentException("Expected 7 fields");
+		}
+
+		private void lineEnd() {
+			if (peek(0) == '\r')
+				position++;
+			if (position >= buffer.limit() && mapStart + buffer.limit() == fileSize)
+				return;
+			if (next() != '\n')
+				throw new IllegalArgumentException(position > buffer.limit() ? "Line too long" : "Expected 7 fields");
+		}
+
+		// The byte "offset" bytes after the position, or 0 past the end of the buffer
+		private byte peek(int offset) {
+			int i = position + offset;
+			return i < buffer.limit() ? buffer.get(i) : 0;
+		}
+
+		private byte next() {
+			byte b = peek(0);
+			position++;
+			return b;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AccountLoader [chunkSize=" + chunkSize + "]";
+	}
+}
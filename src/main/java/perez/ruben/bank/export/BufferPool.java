@@ -0,0 +1,55 @@
+package perez.ruben.bank.export;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pool of direct buffers of the same size, so exports do not allocate (nor free) native memory on every run
+public class BufferPool {
+
+	private final int bufferSize;
+	private final int maxPooled;
+	private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pooled = new AtomicInteger();
+
+	// Keeps at most "maxPooled" buffers; buffers released beyond that are left to the garbage collector
+	public BufferPool(int bufferSize, int maxPooled) {
+		if (bufferSize <= 0 || maxPooled < 0)
+			throw new IllegalArgumentException("The buffer size must be positive");
+
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	// A cleared buffer, in big-endian order
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null)
+			return ByteBuffer.allocateDirect(bufferSize);
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() != bufferSize || !buffer.isDirect())
+			throw new IllegalArgumentException("The buffer does not belong to this pool");
+		if (pooled.incrementAndGet() <= maxPooled)
+			buffers.offer(buffer);
+		else
+			pooled.decrementAndGet();
+	}
+
+	public int getPooled() {
+		return pooled.get();
+	}
+
+	@Override
+	public String toString() {
+		return "BufferPool [bufferSize=" + bufferSize + ", pooled=" + pooled.get() + "]";
+	}
+}
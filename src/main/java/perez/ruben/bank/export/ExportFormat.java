@@ -0,0 +1,29 @@
+package perez.ruben.bank.export;
+
+// Formats written by the AccountExporter
+//
+// CSV: a header and one line per account with the columns id, type (account, checking, savings or striped),
+// owner, balance, held, limit (the overdraft of checking and striped accounts, the interest rate of savings
+// accounts, 0 otherwise) and currency (its code), amounts rounded to the decimals of the exporter (interest
+// rates to 6 decimals).
+//
+// BINARY: the magic number and the version (two ints), then one record per account: id (long), type (byte 'A',
+// 'C', 'S' or 'T' for striped), owner (unsigned short length and UTF-8 bytes), balance, held and limit
+// (doubles) and currency (unsigned short length and UTF-8 bytes of its code), all big-endian.
+public enum ExportFormat {
+
+	CSV("csv"), BINARY("bin");
+
+	public static final int MAGIC = 0x424e4b58;
+	public static final int VERSION = 3;
+
+	private final String extension;
+
+	ExportFormat(String extension) {
+		this.extension = extension;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+}
@@ -0,0 +1,129 @@
+package perez.ruben.bank.kernels;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+
+// The data of many accounts in columns (one primitive array per field), to run the AccountKernels over them
+//
+// The columns are a snapshot: balances are read once, without locking, when the columns are built. The rate is
+// the interest rate of savings accounts (0 for the others), and the limit the lowest balance the account allows
+// (the overdraft of checking accounts, 0 for the others). Kernels run in parallel over chunks of the columns.
+public class AccountColumns {
+
+	// Accounts per task, enough for the vector loops to dominate and few enough to spread over the cores
+	private static final int CHUNK = 1 << 16;
+
+	private final long[] ids;
+	private final double[] balances;
+	private final double[] rates;
+	private final double[] limits;
+
+	public AccountColumns(long[] ids, double[] balances, double[] rates, double[] limits) {
+		if (balances.length != ids.length || rates.length != ids.length || limits.length != ids.length)
+			throw new IllegalArgumentException("All the columns must have the same length");
+		this.ids = ids;
+		this.balances = balances;
+		this.rates = rates;
+		this.limits = limits;
+	}
+
+	public static AccountColumns of(Collection<? extends Account> accounts) {
+		int n = accounts.size();
+		long[] ids = new long[n];
+		double[] balances = new double[n];
+		double[] rates = new double[n];
+		double[] limits = new double[n];
+		int i = 0;
+		for (Account account : accounts) {
+			// The collection may grow meanwhile (e.g. the accounts of a store)
+			if (i == n)
+				break;
+			ids[i] = account.getId();
+			balances[i] = account.getBalance();
+			if (account instanceof SavingsAccount)
+				rates[i] = ((SavingsAccount) account).getInterestRate();
+			else if (account instanceof CheckingAccount)
+				limits[i] = ((CheckingAccount) account).getOverdraft();
+			i++;
+		}
+		if (i < n)
+			return new AccountColumns(Arrays.copyOf(ids, i), Arrays.copyOf(balances, i),
+					Arrays.copyOf(rates, i), Arrays.copyOf(limits, i));
+		return new AccountColumns(ids, balances, rates, limits);
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	// The columns themselves (not copies), indexed like the results of the kernels
+	public long[] getIds() {
+		return ids;
+	}
+
+	public double[] getBalances() {
+		return balances;
+	}
+
+	public double[] getRates() {
+		return rates;
+	}
+
+	public double[] getLimits() {
+		return limits;
+	}
+
+	private IntStream chunks() {
+		return IntStream.range(0, (ids.length + CHUNK - 1) / CHUNK).parallel();
+	}
+
+	private int end(int chunk) {
+		return Math.min(ids.length, (chunk + 1) * CHUNK);
+	}
+
+	// The interest of every account
+	public double[] interest(AccountKernels kernels) {
+		double[] out = new double[ids.length];
+		chunks().forEach(c -> kernels.interest(balances, rates, out, c * CHUNK, end(c)));
+		return out;
+	}
+
+	// The balance of every account after paying the interest of a period and adding its flow
+	public double[] project(AccountKernels kernels, double[] flows) {
+		if (flows.length != ids.length)
+			throw new IllegalArgumentException("There must be one flow per account");
+		double[] out = new double[ids.length];
+		chunks().forEach(c -> kernels.project(balances, rates, flows, out, c * CHUNK, end(c)));
+		return out;
+	}
+
+	// The ids of the accounts whose balance (from "balances", e.g. projected ones) is below "utilization" of
+	// their limit, in column order
+	public long[] breaches(AccountKernels kernels, double[] balances, double utilization) {
+		if (balances.length != ids.length)
+			throw new IllegalArgumentException("There must be one balance per account");
+		int[] indexes = new int[ids.length];
+		int[] counts = new int[(ids.length + CHUNK - 1) / CHUNK];
+		chunks().forEach(c -> counts[c] = kernels.breaches(balances, limits, utilization, indexes, c * CHUNK, end(c)));
+
+		int total = 0;
+		for (int count : counts)
+			total += count;
+		long[] result = new long[total];
+		int n = 0;
+		for (int c = 0; c < counts.length; c++)
+			for (int i = c * CHUNK; i < c * CHUNK + counts[c]; i++)
+				result[n++] = ids[indexes[i]];
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "AccountColumns [size=" + ids.length + "]";
+	}
+}
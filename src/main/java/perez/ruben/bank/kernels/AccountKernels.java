@@ -0,0 +1,31 @@
+package perez.ruben.bank.kernels;
+
+// Batch calculations over columns of account data (see AccountColumns), on the range [from, to) of the columns
+//
+// Every implementation gives exactly the same results as the per-account calculations: the operations are the
+// same, in the same order (e.g. no fused multiply-add).
+public interface AccountKernels {
+
+	// out[i] = balances[i] * rates[i], as SavingsAccount#getInterest
+	void interest(double[] balances, double[] rates, double[] out, int from, int to);
+
+	// out[i] = balances[i] * rates[i] + balances[i] + flows[i]: the balance after paying the interest of a period
+	// and the net amount expected in it (e.g. from standing orders)
+	void project(double[] balances, double[] rates, double[] flows, double[] out, int from, int to);
+
+	// Writes to out[from...] the indexes of the accounts whose balance is below "utilization" of their limit
+	// (balances[i] < limits[i] * utilization) and returns how many there are
+	// With a utilization of 1, these are the accounts beyond their limit; with 0.9, the ones using more than 90% of
+	// their overdraft (and, for accounts with no overdraft, the ones with a negative balance)
+	int breaches(double[] balances, double[] limits, double utilization, int[] out, int from, int to);
+
+	// The vectorized kernels if they were built (with the "vector" profile) and the Vector API is available (run
+	// with --add-modules jdk.incubator.vector), the scalar ones otherwise
+	static AccountKernels best() {
+		try {
+			return (AccountKernels) Class.forName("perez.ruben.bank.kernels.VectorKernels").getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ScalarKernels();
+		}
+	}
+}
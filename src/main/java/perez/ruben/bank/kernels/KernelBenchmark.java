@@ -0,0 +1,99 @@
+package perez.ruben.bank.kernels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Compares the kernels with the per-account loops: java perez.ruben.bank.kernels.KernelBenchmark [accounts] [rounds]
+//
+// Built and run with the "vector" profile (and --add-modules jdk.incubator.vector), it also measures the
+// VectorKernels. Times are the best of the rounds, after a warm-up, on a single thread (the kernels are called
+// on the whole columns, not through AccountColumns, which would also split them over the cores).
+public class KernelBenchmark {
+
+	private static long time(Runnable task, int rounds) {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			task.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static void print(String name, long nanos, long baseline) {
+		System.out.println(String.format("%-32s %10.2f ms %8.1fx", name, nanos / 1e6, baseline / (double) nanos));
+	}
+
+	public static void main(String[] args) throws OverdraftException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		Random random = new Random(42);
+		List<Account> accounts = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Account account;
+			double lowest = 0;
+			if (i % 2 == 0)
+				account = new SavingsAccount(i, "Owner " + i % 1000, random.nextDouble() * 0.05);
+			else {
+				lowest = -random.nextInt(1000);
+				account = new CheckingAccount(i, "Owner " + i % 1000, lowest);
+			}
+			account.deposit(lowest + random.nextDouble() * 2000);
+			accounts.add(account);
+		}
+		AccountColumns columns = AccountColumns.of(accounts);
+		double[] balances = columns.getBalances();
+		double[] flows = new double[n];
+		double[] out = new double[n];
+		int[] indexes = new int[n];
+		AccountKernels scalar = new ScalarKernels();
+		AccountKernels best = AccountKernels.best();
+		System.out.println(n + " accounts, best kernels: " + best);
+
+		// Warm-up
+		Runnable perAccountInterest = () -> {
+			for (int i = 0; i < accounts.size(); i++) {
+				Account account = accounts.get(i);
+				out[i] = account instanceof SavingsAccount ? ((SavingsAccount) account).getInterest() : 0;
+			}
+		};
+		Runnable perAccountBreaches = () -> {
+			int count = 0;
+			for (Account account : accounts)
+				if (account instanceof CheckingAccount
+						&& account.getBalance() < ((CheckingAccount) account).getOverdraft() * 0.9)
+					indexes[count++] = (int) account.getId();
+		};
+		for (int i = 0; i < 5; i++) {
+			perAccountInterest.run();
+			perAccountBreaches.run();
+			scalar.interest(balances, columns.getRates(), out, 0, n);
+			best.interest(balances, columns.getRates(), out, 0, n);
+			best.project(balances, columns.getRates(), flows, out, 0, n);
+			best.breaches(balances, columns.getLimits(), 0.9, indexes, 0, n);
+		}
+
+		long baseline = time(perAccountInterest, rounds);
+		print("interest, per account", baseline, baseline);
+		print("interest, " + scalar, time(() -> scalar.interest(balances, columns.getRates(), out, 0, n), rounds), baseline);
+		print("interest, " + best, time(() -> best.interest(balances, columns.getRates(), out, 0, n), rounds), baseline);
+		print("projection, " + scalar, time(() -> scalar.project(balances, columns.getRates(), flows, out, 0, n), rounds),
+				baseline);
+		print("projection, " + best, time(() -> best.project(balances, columns.getRates(), flows, out, 0, n), rounds),
+				baseline);
+
+		baseline = time(perAccountBreaches, rounds);
+		print("breaches, per account", baseline, baseline);
+		print("breaches, " + scalar, time(() -> scalar.breaches(balances, columns.getLimits(), 0.9, indexes, 0, n), rounds),
+				baseline);
+		print("breaches, " + best, time(() -> best.breaches(balances, columns.getLimits(), 0.9, indexes, 0, n), rounds),
+				baseline);
+	}
+}
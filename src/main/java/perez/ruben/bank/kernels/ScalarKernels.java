@@ -0,0 +1,36 @@
+package perez.ruben.bank.kernels;
+
+// Plain loops over the columns, which the JIT may still unroll (and sometimes vectorize)
+public class ScalarKernels implements AccountKernels {
+
+	@Override
+	public void interest(double[] balances, double[] rates, double[] out, int from, int to) {
+		for (int i = from; i < to; i++)
+			out[i] = balances[i] * rates[i];
+	}
+
+	@Override
+	public void project(double[] balances, double[] rates, double[] flows, double[] out, int from, int to) {
+		for (int i = from; i < to; i++)
+			out[i] = balances[i] * rates[i] + balances[i] + flows[i];
+	}
+
+	@Override
+	public int breaches(double[] balances, double[] limits, double utilization, int[] out, int from, int to) {
+		return breaches(balances, limits, utilization, out, from, from, to);
+	}
+
+	// Same as #breaches, but writing the indexes from out[start] (for the lanes left by the VectorKernels)
+	static int breaches(double[] balances, double[] limits, double utilization, int[] out, int start, int from, int to) {
+		int n = start;
+		for (int i = from; i < to; i++)
+			if (balances[i] < limits[i] * utilization)
+				out[n++] = i;
+		return n - start;
+	}
+
+	@Override
+	public String toString() {
+		return "ScalarKernels";
+	}
+}
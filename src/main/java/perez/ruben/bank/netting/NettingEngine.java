@@ -0,0 +1,99 @@
+package perez.ruben.bank.netting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Collectors;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Settles a batch of transfers by posting the net position of every account instead of every single transfer
+//
+// Net positions are computed in parallel. An account whose net position would take it below its overdraft limit
+// has all the transfers it pays for rejected, and the positions are computed again until no account overdrafts.
+// The remaining positions are then posted with one deposit per account, withdrawals first (as #transfer does).
+public class NettingEngine {
+
+	public NettingResult settle(List<Transfer> transfers) throws OverdraftException {
+		Objects.requireNonNull(transfers);
+
+		Set<CheckingAccount> excluded = new HashSet<>();
+		List<Transfer> candidates = transfers;
+		Map<CheckingAccount, Double> positions;
+
+		while (true) {
+			positions = netPositions(candidates);
+
+			List<CheckingAccount> overdrafted = positions.entrySet().parallelStream()
+					.filter(e -> e.getValue() < 0 && e.getKey().getAvailableBalance() + e.getValue() < e.getKey().getOverdraft())
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toList());
+
+			if (overdrafted.isEmpty())
+				break;
+
+			excluded.addAll(overdrafted);
+			candidates = candidates.parallelStream()
+					.filter(t -> !excluded.contains(t.getPayer()))
+					.collect(Collectors.toList());
+		}
+
+		post(positions);
+
+		List<Transfer> rejected = excluded.isEmpty() ? new ArrayList<>() : transfers.parallelStream()
+				.filter(t -> excluded.contains(t.getPayer()))
+				.collect(Collectors.toList());
+		return new NettingResult(candidates, rejected, positions);
+	}
+
+	static Map<CheckingAccount, Double> netPositions(List<Transfer> transfers) {
+		ConcurrentHashMap<CheckingAccount, DoubleAdder> adders = new ConcurrentHashMap<>();
+		transfers.parallelStream().forEach(t -> {
+			adders.computeIfAbsent(t.getFrom(), k -> new DoubleAdder()).add(-t.getAmount());
+			adders.computeIfAbsent(t.getTo(), k -> new DoubleAdder()).add(t.getAmount());
+		});
+
+		Map<CheckingAccount, Double> positions = new HashMap<>(adders.size() * 4 / 3 + 1);
+		adders.forEach((account, adder) -> {
+			double position = adder.sum();
+			if (position != 0)
+				positions.put(account, position);
+		});
+		return positions;
+	}
+
+	private void post(Map<CheckingAccount, Double> positions) throws OverdraftException {
+		// Withdrawals go first, so that a withdrawal rejected because of a concurrent change in the account
+		// can be undone before any money has been credited
+		List<Map.Entry<CheckingAccount, Double>> posted = new ArrayList<>();
+		for (Map.Entry<CheckingAccount, Double> e : positions.entrySet()) {
+			if (e.getValue() >= 0)
+				continue;
+			try {
+				e.getKey().deposit(e.getValue());
+				posted.add(e);
+			} catch (OverdraftException oe) {
+				rollback(posted);
+				throw oe;
+			}
+		}
+
+		for (Map.Entry<CheckingAccount, Double> e : positions.entrySet()) {
+			if (e.getValue() > 0)
+				e.getKey().deposit(e.getValue());
+		}
+	}
+
+	private void rollback(List<Map.Entry<CheckingAccount, Double>> posted) throws OverdraftException {
+		// Giving back money that was withdrawn can never overdraft
+		for (Map.Entry<CheckingAccount, Double> e : posted)
+			e.getKey().deposit(-e.getValue());
+	}
+}
@@ -0,0 +1,40 @@
+package perez.ruben.bank.netting;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+
+public final class NettingResult {
+
+	private final List<Transfer> applied;
+	private final List<Transfer> rejected;
+	private final Map<CheckingAccount, Double> postings;
+
+	NettingResult(List<Transfer> applied, List<Transfer> rejected, Map<CheckingAccount, Double> postings) {
+		this.applied = Collections.unmodifiableList(applied);
+		this.rejected = Collections.unmodifiableList(rejected);
+		this.postings = Collections.unmodifiableMap(postings);
+	}
+
+	// Transfers included in the net positions that were posted
+	public List<Transfer> getApplied() {
+		return applied;
+	}
+
+	// Transfers left out because their payer would have overdrafted with them
+	public List<Transfer> getRejected() {
+		return rejected;
+	}
+
+	// The single posting made on each account (accounts with a zero net position are not included)
+	public Map<CheckingAccount, Double> getPostings() {
+		return postings;
+	}
+
+	@Override
+	public String toString() {
+		return "NettingResult [applied=" + applied.size() + ", rejected=" + rejected.size() + ", postings=" + postings.size() + "]";
+	}
+}
@@ -0,0 +1,44 @@
+package perez.ruben.bank.netting;
+
+import java.util.Objects;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+
+// A single transfer inside a batch, with the same semantics as CheckingAccount#transfer:
+// "amount" is withdrawn from "from" and deposited into "to" (a negative amount moves money the other way)
+public final class Transfer {
+
+	private final CheckingAccount from;
+	private final CheckingAccount to;
+	private final double amount;
+
+	public Transfer(CheckingAccount from, CheckingAccount to, double amount) {
+		this.from = Objects.requireNonNull(from, "The source account may not be null");
+		this.to = Objects.requireNonNull(to, "The destination account may not be null");
+		if (from.getCurrencyId() != to.getCurrencyId())
+			throw new IllegalArgumentException("Transfers between currencies can not be netted");
+		this.amount = amount;
+	}
+
+	public CheckingAccount getFrom() {
+		return from;
+	}
+
+	public CheckingAccount getTo() {
+		return to;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	// The account whose balance decreases with this transfer
+	public CheckingAccount getPayer() {
+		return amount >= 0 ? from : to;
+	}
+
+	@Override
+	public String toString() {
+		return "Transfer [from=" + from.getOwner() + ", to=" + to.getOwner() + ", amount=" + amount + "]";
+	}
+}
@@ -0,0 +1,69 @@
+package perez.ruben.bank.owners;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns owner names: every distinct name is kept once and gets a compact id
+//
+// Accounts keep the canonical instance of their owner's name, so customers with several accounts do not
+// duplicate it. Names are never removed from the dictionary.
+public class OwnerDictionary {
+
+	private static final OwnerDictionary DEFAULT = new OwnerDictionary();
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	// Names by id (guarded by this for writes, published through the volatile reference)
+	private volatile String[] names = new String[1024];
+	private int size;
+
+	// The dictionary used by all the accounts
+	public static OwnerDictionary getDefault() {
+		return DEFAULT;
+	}
+
+	// The id of the name, registering it if it is new
+	public int idOf(String name) {
+		Integer id = ids.get(name);
+		if (id != null)
+			return id;
+		return register(Objects.requireNonNull(name, "The name may not be null"));
+	}
+
+	// The id of the name, or -1 if it was never registered
+	public int find(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public String nameOf(int id) {
+		String[] current = names;
+		if (id < 0 || id >= current.length || current[id] == null)
+			throw new IllegalArgumentException("There is no name with id " + id);
+		return current[id];
+	}
+
+	// The canonical instance of the name
+	public String intern(String name) {
+		return nameOf(idOf(name));
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	private synchronized int register(String name) {
+		Integer id = ids.get(name);
+		if (id != null)
+			return id;
+
+		String[] current = names;
+		if (size == current.length)
+			current = Arrays.copyOf(current, current.length * 2);
+		// Publish the name before its id, so a thread that finds the id always finds the name
+		current[size] = name;
+		names = current;
+		ids.put(name, size);
+		return size++;
+	}
+}
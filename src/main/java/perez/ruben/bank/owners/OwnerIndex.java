@@ -0,0 +1,115 @@
+package perez.ruben.bank.owners;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.store.StoreListener;
+
+// Index of the ids of the accounts of every owner, kept up to date as a listener of an AccountStore
+//
+// Exact lookups are a hash lookup of the owner's id in the dictionary plus one of its account set. Names are
+// also kept sorted for prefix lookups. Owner changes are applied while the account's owner lock is held.
+public class OwnerIndex implements StoreListener {
+
+	private final OwnerDictionary dictionary;
+	private final ConcurrentHashMap<Integer, Set<Long>> accountsByOwner = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListMap<String, Integer> owners = new ConcurrentSkipListMap<>();
+
+	public OwnerIndex() {
+		this(OwnerDictionary.getDefault());
+	}
+
+	public OwnerIndex(OwnerDictionary dictionary) {
+		this.dictionary = Objects.requireNonNull(dictionary);
+	}
+
+	// The ids of the accounts of the owner (a live, read-only view)
+	public Set<Long> accountsOf(String owner) {
+		int id = dictionary.find(owner);
+		if (id < 0)
+			return Collections.emptySet();
+		Set<Long> accounts = accountsByOwner.get(id);
+		return accounts == null ? Collections.<Long>emptySet() : Collections.unmodifiableSet(accounts);
+	}
+
+	// The ids of the accounts of every owner whose name starts with the prefix
+	public Set<Long> accountsWithOwnerPrefix(String prefix) {
+		Set<Long> result = new HashSet<>();
+		for (Integer id : ownersWithPrefix(prefix).values()) {
+			Set<Long> accounts = accountsByOwner.get(id);
+			if (accounts != null)
+				result.addAll(accounts);
+		}
+		return result;
+	}
+
+	// Up to "limit" names of owners that start with the prefix (owners that no longer hold accounts included)
+	public Set<String> ownersWithPrefix(String prefix, int limit) {
+		Set<String> result = new HashSet<>();
+		for (String name : ownersWithPrefix(prefix).keySet()) {
+			if (result.size() >= limit)
+				break;
+			result.add(name);
+		}
+		return result;
+	}
+
+	private NavigableMap<String, Integer> ownersWithPrefix(String prefix) {
+		Objects.requireNonNull(prefix);
+		return owners.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+	}
+
+	@Override
+	public void accountAdded(Account account) {
+		add(account.getOwner(), account.getId());
+	}
+
+	@Override
+	public void accountRemoved(Account account) {
+		remove(account.getOwner(), account.getId());
+	}
+
+	@Override
+	public void ownerChanged(Account account, String oldOwner, String newOwner) {
+		// Both names have the same id, so the account would be added and then removed
+		if (oldOwner.equals(newOwner))
+			return;
+		add(newOwner, account.getId());
+		remove(oldOwner, account.getId());
+	}
+
+	private void add(String owner, long accountId) {
+		int id = dictionary.idOf(owner);
+		owners.putIfAbsent(owner, id);
+		accountsByOwner.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(accountId);
+	}
+
+	private void remove(String owner, long accountId) {
+		int id = dictionary.find(owner);
+		if (id < 0)
+			return;
+		// Empty sets are kept: owners usually get new accounts again, and removing them would race with #add
+		Set<Long> accounts = accountsByOwner.get(id);
+		if (accounts != null)
+			accounts.remove(accountId);
+	}
+
+	public int ownerCount() {
+		return owners.size();
+	}
+
+	@Override
+	public String toString() {
+		int accounts = 0;
+		for (Map.Entry<Integer, Set<Long>> e : accountsByOwner.entrySet())
+			accounts += e.getValue().size();
+		return "OwnerIndex [owners=" + owners.size() + ", accounts=" + accounts + "]";
+	}
+}
@@ -0,0 +1,167 @@
+package perez.ruben.bank.reconciliation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.store.StoreListener;
+
+// Hash/sum tree over the balances of all the accounts of a store, indexed by account id
+//
+// Every leaf holds the balance of one account and a hash of its id and balance. Every inner node holds the sum
+// and a hash of its two children, so the root holds the total of the bank and a digest of every balance.
+//
+// Commits only update the leaf of the account and flag the path to the root as dirty, stopping at the first
+// node already flagged, so writers do not contend on the upper levels. Queries first recompute the dirty nodes.
+// Changes committed while a query runs may or may not be included in its result, so digests to compare should
+// be taken while both sides are quiet (e.g. a replica that has caught up with its leader).
+public class BalanceTree implements StoreListener {
+
+	private final int capacity;
+	// Nodes in heap order: the root is 1, the children of n are 2n and 2n+1, the leaf of account i is capacity+i
+	private final AtomicLongArray sums;
+	private final AtomicLongArray hashes;
+	private final AtomicIntegerArray dirty;
+
+	// Accounts must have ids lower than "capacity", which must be a power of two
+	public BalanceTree(int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("The capacity must be a power of two greater than one");
+
+		this.capacity = capacity;
+		sums = new AtomicLongArray(2 * capacity);
+		hashes = new AtomicLongArray(2 * capacity);
+		dirty = new AtomicIntegerArray(capacity);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// Adds accounts that were already in a store before the tree was registered as its listener
+	public void load(Iterable<Account> accounts) {
+		for (Account account : accounts)
+			update(account.getId(), account.getBalance());
+	}
+
+	@Override
+	public void accountAdded(Account account) {
+		update(account.getId(), account.getBalance());
+	}
+
+	@Override
+	public void accountRemoved(Account account) {
+		// Accounts rejected by #accountAdded are removed from the store again
+		if (account.getId() >= capacity)
+			return;
+		int leaf = leaf(account.getId());
+		sums.set(leaf, Double.doubleToRawLongBits(0));
+		hashes.set(leaf, 0);
+		markDirty(leaf >>> 1);
+	}
+
+	@Override
+	public void balanceChanged(Account account, double amount, Account counterpart) {
+		update(account.getId(), account.getBalance());
+	}
+
+	private void update(long id, double balance) {
+		int leaf = leaf(id);
+		sums.set(leaf, Double.doubleToRawLongBits(balance));
+		hashes.set(leaf, leafHash(id, balance));
+		markDirty(leaf >>> 1);
+	}
+
+	private int leaf(long id) {
+		if (id < 0 || id >= capacity)
+			throw new IllegalArgumentException("The account id " + id + " is out of the range of the tree (" + capacity + ")");
+		return capacity + (int) id;
+	}
+
+	private void markDirty(int node) {
+		// A node already flagged has its ancestors flagged too, or a refresh on its way to it
+		while (node >= 1 && dirty.getAndSet(node, 1) == 0)
+			node >>>= 1;
+	}
+
+	private synchronized void refresh() {
+		refresh(1);
+	}
+
+	private void refresh(int node) {
+		// The flag is cleared before reading the children, so any change after this point flags the node again
+		if (dirty.getAndSet(node, 0) == 0)
+			return;
+
+		int left = 2 * node;
+		int right = left + 1;
+		if (left < capacity) {
+			refresh(left);
+			refresh(right);
+		}
+		sums.set(node, Double.doubleToRawLongBits(sum(left) + sum(right)));
+		hashes.set(node, combine(hashes.get(left), hashes.get(right)));
+	}
+
+	private double sum(int node) {
+		return Double.longBitsToDouble(sums.get(node));
+	}
+
+	public double getTotal() {
+		refresh();
+		return sum(1);
+	}
+
+	public long getDigest() {
+		refresh();
+		return hashes.get(1);
+	}
+
+	// Ids of the accounts whose balance differs between both trees
+	// Only the subtrees whose hashes differ are visited, so the cost grows with the number of differences
+	public List<Long> diff(BalanceTree other) {
+		if (other.capacity != capacity)
+			throw new IllegalArgumentException("Trees of different capacity can not be compared");
+
+		refresh();
+		other.refresh();
+		List<Long> differences = new ArrayList<>();
+		diff(1, other, differences);
+		return differences;
+	}
+
+	private void diff(int node, BalanceTree other, List<Long> differences) {
+		if (hashes.get(node) == other.hashes.get(node))
+			return;
+		if (node >= capacity) {
+			differences.add((long) (node - capacity));
+			return;
+		}
+		diff(2 * node, other, differences);
+		diff(2 * node + 1, other, differences);
+	}
+
+	// Empty leaves and subtrees hash to 0
+	private static long leafHash(long id, double balance) {
+		return mix(mix(id + 1) ^ Double.doubleToLongBits(balance + 0.0)) | 1;
+	}
+
+	private static long combine(long left, long right) {
+		if (left == 0 && right == 0)
+			return 0;
+		return mix(left * 0x9E3779B97F4A7C15L + right) | 1;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+
+	@Override
+	public String toString() {
+		return "BalanceTree [capacity=" + capacity + ", total=" + getTotal() + "]";
+	}
+}
@@ -0,0 +1,128 @@
+package perez.ruben.bank.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// A run of consecutive journal records, reused by leaders and followers to move records without allocating
+final class JournalBatch {
+
+	private final byte[] types;
+	private final long[] accounts;
+	private final long[] counterparts;
+	private final double[] amounts;
+	private final double[] values;
+	private final String[] owners;
+	private final String[] currencies;
+	private long first;
+	private int size;
+
+	JournalBatch(int capacity) {
+		types = new byte[capacity];
+		accounts = new long[capacity];
+		counterparts = new long[capacity];
+		amounts = new double[capacity];
+		values = new double[capacity];
+		owners = new String[capacity];
+		currencies = new String[capacity];
+	}
+
+	int capacity() {
+		return types.length;
+	}
+
+	void set(int n, byte type, long account, long counterpart, double amount, double value, String owner, String currency) {
+		types[n] = type;
+		accounts[n] = account;
+		counterparts[n] = counterpart;
+		amounts[n] = amount;
+		values[n] = value;
+		owners[n] = owner;
+		currencies[n] = currency;
+	}
+
+	void reset(long first, int size) {
+		this.first = first;
+		this.size = size;
+	}
+
+	long first() {
+		return first;
+	}
+
+	int size() {
+		return size;
+	}
+
+	byte type(int n) {
+		return types[n];
+	}
+
+	long account(int n) {
+		return accounts[n];
+	}
+
+	double amount(int n) {
+		return amounts[n];
+	}
+
+	double value(int n) {
+		return values[n];
+	}
+
+	String owner(int n) {
+		return owners[n];
+	}
+
+	String currency(int n) {
+		return currencies[n];
+	}
+
+	static boolean isOpen(byte type) {
+		return type == ReplicationJournal.OPEN_ACCOUNT || type == ReplicationJournal.OPEN_SAVINGS || type == ReplicationJournal.OPEN_CHECKING
+				|| type == ReplicationJournal.OPEN_STRIPED;
+	}
+
+	// Whether the record carries an owner (accounts are opened with theirs)
+	static boolean hasOwner(byte type) {
+		return isOpen(type) || type == ReplicationJournal.OWNER;
+	}
+
+	// Whether the record carries a currency (accounts are opened with theirs)
+	static boolean hasCurrency(byte type) {
+		return isOpen(type) || type == ReplicationJournal.CURRENCY;
+	}
+
+	// Writes the first "size" records, without the sequence numbers (they are consecutive from "first")
+	void write(DataOutputStream out) throws IOException {
+		out.writeLong(first);
+		out.writeInt(size);
+		for (int n = 0; n < size; n++)
+			writeRecord(out, types[n], accounts[n], counterparts[n], amounts[n], values[n], owners[n], currencies[n]);
+	}
+
+	void read(DataInputStream in) throws IOException {
+		long first = in.readLong();
+		int size = in.readInt();
+		if (size > types.length)
+			throw new IOException("Batch of " + size + " records does not fit in " + types.length);
+		for (int n = 0; n < size; n++) {
+			byte type = in.readByte();
+			set(n, type, in.readLong(), in.readLong(), in.readDouble(), in.readDouble(), hasOwner(type) ? in.readUTF() : null,
+					hasCurrency(type) ? in.readUTF() : null);
+		}
+		reset(first, size);
+	}
+
+	static void writeRecord(DataOutputStream out, byte type, long account, long counterpart, double amount, double value, String owner, String currency) throws IOException {
+		out.writeByte(type);
+		out.writeLong(account);
+		out.writeLong(counterpart);
+		out.writeDouble(amount);
+		out.writeDouble(value);
+		if (hasOwner(type))
+			out.writeUTF(owner);
+		if (hasCurrency(type))
+			out.writeUTF(currency);
+	}
+}
@@ -0,0 +1,287 @@
+package perez.ruben.bank.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.store.AccountStore;
+
+// Read-only replica of the accounts of a leader, kept up to date with the records shipped by a ReplicationLeader
+//
+// Every batch of records is applied at once, so queries always see the state of the leader after a whole number
+// of records (never half a batch). A follower can take over as leader with #promote.
+public class ReplicationFollower implements Closeable {
+
+	private static final class Replica {
+		final byte type;
+		String owner;
+		double balance;
+		// Overdraft or interest rate, depending on the type
+		double value;
+		String currency;
+
+		Replica(byte type, String owner, double balance, double value, String currency) {
+			this.type = type;
+			this.owner = owner;
+			this.balance = balance;
+			this.value = value;
+			this.currency = currency;
+		}
+	}
+
+	private final InetSocketAddress leader;
+	private final Map<Long, Replica> replicas = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Thread receiver;
+	private volatile Socket socket;
+	private volatile boolean stopped;
+
+	// Sequence number of the next record to apply, and of the next record known to the leader
+	private volatile long next = -1;
+	private volatile long leaderNext = 0;
+	private volatile long leaderTime = 0;
+
+	public ReplicationFollower(InetSocketAddress leader) {
+		this.leader = leader;
+		receiver = new Thread(this::receive, "replication-follower-" + leader);
+		receiver.setDaemon(true);
+	}
+
+	public void start() {
+		receiver.start();
+	}
+
+	private void receive() {
+		JournalBatch batch = new JournalBatch(ReplicationLeader.BATCH_SIZE);
+
+		try (Socket s = new Socket(leader.getAddress(), leader.getPort());
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			socket = s;
+			out.writeLong(next);
+			out.flush();
+
+			while (!stopped) {
+				byte frame = in.readByte();
+				if (frame == ReplicationLeader.SNAPSHOT)
+					applySnapshot(in);
+				else if (frame == ReplicationLeader.BATCH) {
+					long head = in.readLong();
+					long time = in.readLong();
+					batch.read(in);
+					apply(batch);
+					leaderNext = head;
+					leaderTime = time;
+				} else
+					throw new IOException("Unknown frame " + frame);
+			}
+		} catch (IOException e) {
+			// The leader is gone or the follower was stopped
+		}
+	}
+
+	private void applySnapshot(DataInputStream in) throws IOException {
+		long snapshotNext = in.readLong();
+		Map<Long, Replica> snapshot = new HashMap<>();
+		while (in.readBoolean()) {
+			byte type = in.readByte();
+			long id = in.readLong();
+			in.readLong();
+			double balance = in.readDouble();
+			double value = in.readDouble();
+			String owner = in.readUTF();
+			snapshot.put(id, new Replica(type, owner, balance, value, in.readUTF()));
+		}
+
+		lock.writeLock().lock();
+		try {
+			replicas.clear();
+			replicas.putAll(snapshot);
+			next = snapshotNext;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void apply(JournalBatch batch) throws IOException {
+		if (batch.first() != next)
+			throw new IOException("Expected record " + next + " but got " + batch.first());
+
+		lock.writeLock().lock();
+		try {
+			for (int n = 0; n < batch.size(); n++) {
+				byte type = batch.type(n);
+				long id = batch.account(n);
+
+				if (JournalBatch.isOpen(type)) {
+					replicas.putIfAbsent(id, new Replica(type, batch.owner(n), batch.amount(n), batch.value(n), batch.currency(n)));
+					continue;
+				}
+
+				if (type == ReplicationJournal.CLOSE) {
+					replicas.remove(id);
+					continue;
+				}
+
+				// Records of accounts that were already in use when they were added to the leader's store are ignored
+				Replica replica = replicas.get(id);
+				if (replica == null)
+					continue;
+
+				switch (type) {
+				case ReplicationJournal.POSTING:
+				case ReplicationJournal.TRANSFER:
+					replica.balance = batch.value(n);
+					break;
+				case ReplicationJournal.OVERDRAFT:
+				case ReplicationJournal.INTEREST_RATE:
+					replica.value = batch.value(n);
+					break;
+				case ReplicationJournal.OWNER:
+					replica.owner = batch.owner(n);
+					break;
+				case ReplicationJournal.CURRENCY:
+					replica.currency = batch.currency(n);
+					break;
+				default:
+					throw new IOException("Unknown record type " + type);
+				}
+			}
+			next = batch.first() + batch.size();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public double getBalance(long id) {
+		lock.readLock().lock();
+		try {
+			return replica(id).balance;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String getOwner(long id) {
+		lock.readLock().lock();
+		try {
+			return replica(id).owner;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String getCurrency(long id) {
+		lock.readLock().lock();
+		try {
+			return replica(id).currency;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// The balances of several accounts, all of them at the same point of the leader's history
+	public double[] getBalances(long... ids) {
+		double[] balances = new double[ids.length];
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < ids.length; i++)
+				balances[i] = replica(ids[i]).balance;
+		} finally {
+			lock.readLock().unlock();
+		}
+		return balances;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return replicas.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Replica replica(long id) {
+		Replica replica = replicas.get(id);
+		if (replica == null)
+			throw new IllegalArgumentException("There is no account with id " + id);
+		return replica;
+	}
+
+	// Sequence number of the next record to apply (-1 before the first snapshot)
+	public long getAppliedSequence() {
+		return next;
+	}
+
+	// Number of records committed by the leader that are not applied yet, as of the last batch received
+	public long getLag() {
+		return next < 0 ? leaderNext : Math.max(0, leaderNext - next);
+	}
+
+	// Time elapsed since the leader shipped the last batch received (the leader sends a batch at least every 50 ms)
+	public long getLagMillis() {
+		return leaderTime == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - leaderTime);
+	}
+
+	// Stops following the leader and returns a store with the replicated accounts, so this process can take over
+	// The currencies of the accounts must be registered in this process (the journal only carries their codes)
+	public AccountStore promote() throws IOException, InterruptedException {
+		close();
+		receiver.join();
+
+		lock.writeLock().lock();
+		try {
+			AccountStore store = new AccountStore(replicas.size());
+			for (Map.Entry<Long, Replica> e : replicas.entrySet())
+				store.add(toAccount(e.getKey(), e.getValue()));
+			return store;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static Account toAccount(long id, Replica replica) {
+		Account account;
+		if (replica.type == ReplicationJournal.OPEN_STRIPED)
+			account = new StripedAccount(id, replica.owner, replica.value);
+		else if (replica.type == ReplicationJournal.OPEN_CHECKING)
+			account = new CheckingAccount(id, replica.owner, replica.value);
+		else if (replica.type == ReplicationJournal.OPEN_SAVINGS)
+			account = new SavingsAccount(id, replica.owner, replica.value);
+		else
+			account = new Account(id, replica.owner);
+
+		try {
+			account.setCurrency(replica.currency);
+			account.deposit(replica.balance);
+			if (account instanceof StripedAccount)
+				((StripedAccount) account).consolidate();
+		} catch (OverdraftException e) {
+			// The leader never commits a balance its account does not allow
+			throw new IllegalStateException("Replicated balance not allowed in account " + id, e);
+		}
+		return account;
+	}
+
+	@Override
+	public void close() throws IOException {
+		stopped = true;
+		Socket s = socket;
+		if (s != null)
+			s.close();
+	}
+}
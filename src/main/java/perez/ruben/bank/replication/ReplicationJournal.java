@@ -0,0 +1,164 @@
+package perez.ruben.bank.replication;
+
+import java.util.concurrent.locks.StampedLock;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.store.StoreListener;
+
+// In-memory journal of the mutations committed to the accounts of a store, kept in a ring of primitive arrays
+//
+// Records carry the value of the account after the mutation (e.g. the new balance), not only the change, so
+// applying them is idempotent and followers can start from a snapshot taken while the accounts keep changing.
+// Appending never waits for readers: they copy records with optimistic reads of the lock that appends take, and
+// only retry a record under the read lock if it was appended to meanwhile. A reader that falls more than
+// "capacity" records behind gets -1 from #read and has to start over from a snapshot.
+public class ReplicationJournal implements StoreListener {
+
+	static final byte OPEN_ACCOUNT = 1;
+	static final byte OPEN_SAVINGS = 2;
+	static final byte OPEN_CHECKING = 3;
+	static final byte POSTING = 4;
+	static final byte TRANSFER = 5;
+	static final byte OVERDRAFT = 6;
+	static final byte INTEREST_RATE = 7;
+	static final byte CLOSE = 8;
+	static final byte CURRENCY = 9;
+	static final byte OPEN_STRIPED = 10;
+	static final byte OWNER = 11;
+
+	private final int mask;
+	private final byte[] types;
+	private final long[] accounts;
+	private final long[] counterparts;
+	private final double[] amounts;
+	private final double[] values;
+	private final String[] owners;
+	private final String[] currencies;
+
+	// Taken for writing by appends, which are short
+	private final StampedLock lock = new StampedLock();
+	// Sequence number of the next record (written under the write lock)
+	private volatile long next;
+
+	public ReplicationJournal(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("The capacity must be a power of two");
+
+		mask = capacity - 1;
+		types = new byte[capacity];
+		accounts = new long[capacity];
+		counterparts = new long[capacity];
+		amounts = new double[capacity];
+		values = new double[capacity];
+		owners = new String[capacity];
+		currencies = new String[capacity];
+	}
+
+	public long getNextSequence() {
+		return next;
+	}
+
+	// Sequence number of the oldest record still held
+	public long getFirstSequence() {
+		return Math.max(0, next - types.length);
+	}
+
+	@Override
+	public void accountAdded(Account account) {
+		if (account instanceof StripedAccount)
+			append(OPEN_STRIPED, account.getId(), -1, account.getBalance(), ((CheckingAccount) account).getOverdraft(), account.getOwner(), account.getCurrency());
+		else if (account instanceof CheckingAccount)
+			append(OPEN_CHECKING, account.getId(), -1, account.getBalance(), ((CheckingAccount) account).getOverdraft(), account.getOwner(), account.getCurrency());
+		else if (account instanceof SavingsAccount)
+			append(OPEN_SAVINGS, account.getId(), -1, account.getBalance(), ((SavingsAccount) account).getInterestRate(), account.getOwner(), account.getCurrency());
+		else
+			append(OPEN_ACCOUNT, account.getId(), -1, account.getBalance(), 0, account.getOwner(), account.getCurrency());
+	}
+
+	@Override
+	public void accountRemoved(Account account) {
+		append(CLOSE, account.getId(), -1, 0, 0, null, null);
+	}
+
+	@Override
+	public void ownerChanged(Account account, String oldOwner, String newOwner) {
+		append(OWNER, account.getId(), -1, 0, 0, newOwner, null);
+	}
+
+	@Override
+	public void balanceChanged(Account account, double amount, Account counterpart) {
+		if (counterpart == null)
+			append(POSTING, account.getId(), -1, amount, account.getBalance(), null, null);
+		else
+			append(TRANSFER, account.getId(), counterpart.getId(), amount, account.getBalance(), null, null);
+	}
+
+	@Override
+	public void overdraftChanged(CheckingAccount account, double overdraft) {
+		append(OVERDRAFT, account.getId(), -1, 0, overdraft, null, null);
+	}
+
+	@Override
+	public void interestRateChanged(SavingsAccount account, double interestRate) {
+		append(INTEREST_RATE, account.getId(), -1, 0, interestRate, null, null);
+	}
+
+	@Override
+	public void currencyChanged(Account account, String currency) {
+		append(CURRENCY, account.getId(), -1, 0, 0, null, currency);
+	}
+
+	private void append(byte type, long account, long counterpart, double amount, double value, String owner, String currency) {
+		long stamp = lock.writeLock();
+		try {
+			int i = (int) next & mask;
+			types[i] = type;
+			accounts[i] = account;
+			counterparts[i] = counterpart;
+			amounts[i] = amount;
+			values[i] = value;
+			owners[i] = owner;
+			currencies[i] = currency;
+			next++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// Copies the records starting at sequence "from" into "batch", without holding up appends
+	// Returns the number of records copied, or -1 if some of them have already been overwritten
+	int read(long from, JournalBatch batch) {
+		long head = next;
+		if (from < head - types.length)
+			return -1;
+
+		int count = (int) Math.min(head - from, batch.capacity());
+		for (int n = 0; n < count; n++) {
+			long stamp = lock.tryOptimisticRead();
+			if (!copy(from + n, batch, n) || !lock.validate(stamp)) {
+				// Appended to during the copy: copied again, holding appends back for one record only
+				stamp = lock.readLock();
+				try {
+					if (!copy(from + n, batch, n))
+						return -1;
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+		}
+		batch.reset(from, count);
+		return count;
+	}
+
+	// Returns false if the record has been overwritten
+	private boolean copy(long sequence, JournalBatch batch, int n) {
+		if (sequence < next - types.length)
+			return false;
+		int i = (int) sequence & mask;
+		batch.set(n, types[i], accounts[i], counterparts[i], amounts[i], values[i], owners[i], currencies[i]);
+		return true;
+	}
+}
@@ -0,0 +1,133 @@
+package perez.ruben.bank.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.store.AccountStore;
+
+// Ships the journal of a store to the followers connected on the loopback interface
+//
+// Every follower is served by its own thread, which reads the journal at its own pace. The threads making
+// deposits only append to the journal, so their latency does not depend on the followers.
+public class ReplicationLeader implements Closeable {
+
+	static final byte BATCH = 1;
+	static final byte SNAPSHOT = 2;
+
+	static final int BATCH_SIZE = 1024;
+	private static final long HEARTBEAT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+	private final AccountStore store;
+	private final ReplicationJournal journal;
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	public ReplicationLeader(AccountStore store, ReplicationJournal journal, int port) throws IOException {
+		this.store = Objects.requireNonNull(store);
+		this.journal = Objects.requireNonNull(journal);
+		serverSocket = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public void start() {
+		executor.submit(() -> {
+			while (!serverSocket.isClosed()) {
+				try {
+					Socket socket = serverSocket.accept();
+					socket.setTcpNoDelay(true);
+					executor.submit(() -> ship(socket));
+				} catch (IOException e) {
+					// The server socket was closed
+				}
+			}
+		});
+	}
+
+	private void ship(Socket socket) {
+		JournalBatch batch = new JournalBatch(BATCH_SIZE);
+
+		try (Socket s = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+
+			// The follower starts by telling the sequence number of the next record it needs (-1 if it has nothing)
+			long next = in.readLong();
+			long lastSent = System.nanoTime();
+
+			while (!serverSocket.isClosed()) {
+				if (next < journal.getFirstSequence())
+					next = sendSnapshot(out);
+
+				int count = journal.read(next, batch);
+				if (count < 0)
+					continue;
+
+				if (count > 0 || System.nanoTime() - lastSent > HEARTBEAT_NANOS) {
+					// Empty batches let the follower know the leader is alive and how far behind it is
+					out.writeByte(BATCH);
+					out.writeLong(journal.getNextSequence());
+					out.writeLong(System.currentTimeMillis());
+					batch.write(out);
+					out.flush();
+					next += count;
+					lastSent = System.nanoTime();
+				}
+
+				if (count == 0)
+					LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		} catch (IOException e) {
+			// The follower is gone
+		}
+	}
+
+	// Sends the state of every account and returns the sequence number of the first record to ship after it
+	private long sendSnapshot(DataOutputStream out) throws IOException {
+		// Accounts may change while the snapshot is taken: replaying the records after "next" fixes that,
+		// because records carry the resulting values
+		long next = journal.getNextSequence();
+
+		out.writeByte(SNAPSHOT);
+		out.writeLong(next);
+		for (Account account : store.accounts()) {
+			out.writeBoolean(true);
+			if (account instanceof StripedAccount)
+				JournalBatch.writeRecord(out, ReplicationJournal.OPEN_STRIPED, account.getId(), -1, account.getBalance(), ((CheckingAccount) account).getOverdraft(), account.getOwner(), account.getCurrency());
+			else if (account instanceof CheckingAccount)
+				JournalBatch.writeRecord(out, ReplicationJournal.OPEN_CHECKING, account.getId(), -1, account.getBalance(), ((CheckingAccount) account).getOverdraft(), account.getOwner(), account.getCurrency());
+			else if (account instanceof SavingsAccount)
+				JournalBatch.writeRecord(out, ReplicationJournal.OPEN_SAVINGS, account.getId(), -1, account.getBalance(), ((SavingsAccount) account).getInterestRate(), account.getOwner(), account.getCurrency());
+			else
+				JournalBatch.writeRecord(out, ReplicationJournal.OPEN_ACCOUNT, account.getId(), -1, account.getBalance(), 0, account.getOwner(), account.getCurrency());
+		}
+		out.writeBoolean(false);
+		out.flush();
+		return next;
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+}
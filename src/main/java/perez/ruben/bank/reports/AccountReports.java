@@ -0,0 +1,78 @@
+package perez.ruben.bank.reports;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.store.AccountStore;
+
+// Aggregations over all the accounts of a store, computed with parallel scans (see AccountStore#spliterator)
+//
+// Balances are read without locking, so the writers never wait for a report. Each account is read once, but
+// not all at the same instant: a report taken while transfers run may see only one of the legs of some of them.
+public class AccountReports {
+
+	private final AccountStore store;
+
+	public AccountReports(AccountStore store) {
+		this.store = Objects.requireNonNull(store);
+	}
+
+	// Count, total, minimum, maximum and average of the balances
+	public DoubleSummaryStatistics balances() {
+		return store.parallelStream().mapToDouble(Account::getBalance).summaryStatistics();
+	}
+
+	public DoubleSummaryStatistics balances(Class<? extends Account> type) {
+		return store.parallelStream(type).mapToDouble(Account::getBalance).summaryStatistics();
+	}
+
+	public Map<Class<? extends Account>, DoubleSummaryStatistics> balancesByType() {
+		return store.parallelStream().collect(Collectors.groupingByConcurrent(Account::getClass,
+				Collectors.summarizingDouble(Account::getBalance)));
+	}
+
+	// Number of balances below bounds[0], between every two bounds (lower bound included), and from the last one up
+	public long[] balanceHistogram(double... bounds) {
+		double[] sorted = bounds.clone();
+		Arrays.sort(sorted);
+		return store.parallelStream().collect(() -> new long[sorted.length + 1], (histogram, account) -> {
+			int i = Arrays.binarySearch(sorted, account.getBalance());
+			histogram[i >= 0 ? i + 1 : -i - 1]++;
+		}, (left, right) -> {
+			for (int i = 0; i < left.length; i++)
+				left[i] += right[i];
+		});
+	}
+
+	// Fraction of the overdraft in use, over the checking accounts that have one
+	public DoubleSummaryStatistics overdraftUtilization() {
+		return store.parallelStream(CheckingAccount.class)
+				.filter(a -> a.getOverdraft() < 0)
+				.mapToDouble(a -> {
+					double balance = a.getBalance();
+					return balance < 0 ? balance / a.getOverdraft() : 0;
+				})
+				.summaryStatistics();
+	}
+
+	// Total amount owed by the checking accounts with a negative balance
+	public double overdraftInUse() {
+		return store.parallelStream(CheckingAccount.class).mapToDouble(a -> Math.max(0, -a.getBalance())).sum();
+	}
+
+	// Interest the savings accounts would earn if it were paid now
+	public double accruedInterest() {
+		return store.parallelStream(SavingsAccount.class).mapToDouble(SavingsAccount::getInterest).sum();
+	}
+
+	@Override
+	public String toString() {
+		return "AccountReports [store=" + store + "]";
+	}
+}
@@ -0,0 +1,191 @@
+package perez.ruben.bank.reports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.store.StoreListener;
+
+// Index of the accounts of an AccountStore ordered by balance, and of the checking accounts ordered by the
+// utilization of their overdraft, kept up to date as a listener of the store
+//
+// Every account has one entry (balance, id) in a concurrent skip list of the accounts of its class, and checking
+// accounts with an overdraft one more (utilization, id). A commit replaces the account's entries, which costs two
+// skip list operations per index it is in, whatever the number of accounts; range queries only walk the entries
+// in the range. Queries are weakly consistent: an account updated meanwhile may or may not be listed.
+// Utilization is computed as in AccountReports#overdraftUtilization.
+public class BalanceRangeIndex implements StoreListener {
+
+	private static final class Key implements Comparable<Key> {
+		private final double value;
+		private final long id;
+
+		Key(double value, long id) {
+			this.value = value;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			int c = Double.compare(value, other.value);
+			return c != 0 ? c : Long.compare(id, other.id);
+		}
+	}
+
+	// The keys of an account, guarded by the entry (updates of an account come in order, under its lock, but
+	// its removal from the store does not)
+	private static final class Entry {
+		private final NavigableSet<Key> balances;
+		private Key balance;
+		private Key utilization;
+		private boolean removed;
+
+		Entry(NavigableSet<Key> balances) {
+			this.balances = balances;
+		}
+	}
+
+	private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+	// Balances by class of account, so queries on a type only walk the accounts of that type
+	private final ConcurrentHashMap<Class<?>, NavigableSet<Key>> balances = new ConcurrentHashMap<>();
+	private final NavigableSet<Key> utilizations = new ConcurrentSkipListSet<>();
+
+	// The ids of the accounts of the type (subclasses included) with a balance below "threshold", by balance
+	public List<Long> balancesBelow(Class<? extends Account> type, double threshold) {
+		return balances(type, new Key(Double.NEGATIVE_INFINITY, Long.MIN_VALUE), true, new Key(threshold, Long.MIN_VALUE), false);
+	}
+
+	// The ids of the accounts of the type (subclasses included) with a balance above "threshold", by balance
+	public List<Long> balancesAbove(Class<? extends Account> type, double threshold) {
+		return balances(type, new Key(threshold, Long.MAX_VALUE), false, new Key(Double.POSITIVE_INFINITY, Long.MAX_VALUE), true);
+	}
+
+	// The ids of the accounts of the type (subclasses included) with a balance in [from, to], by balance
+	public List<Long> balancesBetween(Class<? extends Account> type, double from, double to) {
+		return balances(type, new Key(from, Long.MIN_VALUE), true, new Key(to, Long.MAX_VALUE), true);
+	}
+
+	// The ids of the checking accounts that use more than "fraction" of their overdraft (e.g. 0.9), by utilization
+	public List<Long> utilizationAbove(double fraction) {
+		return ids(new ArrayList<>(utilizations.tailSet(new Key(fraction, Long.MAX_VALUE), false)));
+	}
+
+	private List<Long> balances(Class<? extends Account> type, Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+		if (from.compareTo(to) > 0)
+			return new ArrayList<>();
+		List<Key> keys = new ArrayList<>();
+		int sets = 0;
+		for (Map.Entry<Class<?>, NavigableSet<Key>> e : balances.entrySet()) {
+			if (type.isAssignableFrom(e.getKey())) {
+				keys.addAll(e.getValue().subSet(from, fromInclusive, to, toInclusive));
+				sets++;
+			}
+		}
+		// Every set is sorted, but not their concatenation
+		if (sets > 1)
+			keys.sort(null);
+		return ids(keys);
+	}
+
+	private static List<Long> ids(List<Key> keys) {
+		List<Long> ids = new ArrayList<>(keys.size());
+		for (Key key : keys)
+			ids.add(key.id);
+		return ids;
+	}
+
+	// Adds accounts that were already in a store before the index was registered as its listener
+	// Register the index first and then load the accounts of the store: accounts added meanwhile are seen by both,
+	// and indexed once, and changes made meanwhile are not lost
+	public void load(Iterable<Account> accounts) {
+		for (Account account : accounts)
+			add(account);
+	}
+
+	// Number of accounts indexed
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void accountAdded(Account account) {
+		add(account);
+	}
+
+	private void add(Account account) {
+		Entry entry = new Entry(balances.computeIfAbsent(account.getClass(), c -> new ConcurrentSkipListSet<>()));
+		// Already indexed by #load or by the store (the store rejects duplicate ids)
+		if (entries.putIfAbsent(account.getId(), entry) != null)
+			return;
+		update(account);
+	}
+
+	@Override
+	public void accountRemoved(Account account) {
+		Entry entry = entries.remove(account.getId());
+		if (entry == null)
+			return;
+		synchronized (entry) {
+			entry.removed = true;
+			if (entry.balance != null)
+				entry.balances.remove(entry.balance);
+			if (entry.utilization != null)
+				utilizations.remove(entry.utilization);
+		}
+	}
+
+	@Override
+	public void balanceChanged(Account account, double amount, Account counterpart) {
+		update(account);
+	}
+
+	@Override
+	public void overdraftChanged(CheckingAccount account, double overdraft) {
+		update(account);
+	}
+
+	private void update(Account account) {
+		Entry entry = entries.get(account.getId());
+		if (entry == null)
+			return;
+
+		long id = account.getId();
+		synchronized (entry) {
+			if (entry.removed)
+				return;
+
+			double balance = account.getBalance();
+			entry.balance = replace(entry.balances, entry.balance, balance, id);
+
+			if (account instanceof CheckingAccount) {
+				double overdraft = ((CheckingAccount) account).getOverdraft();
+				if (overdraft < 0)
+					entry.utilization = replace(utilizations, entry.utilization, balance < 0 ? balance / overdraft : 0, id);
+				else if (entry.utilization != null) {
+					utilizations.remove(entry.utilization);
+					entry.utilization = null;
+				}
+			}
+		}
+	}
+
+	private static Key replace(NavigableSet<Key> set, Key old, double value, long id) {
+		if (old != null && Double.compare(old.value, value) == 0)
+			return old;
+		if (old != null)
+			set.remove(old);
+		Key key = new Key(value, id);
+		set.add(key);
+		return key;
+	}
+
+	@Override
+	public String toString() {
+		return "BalanceRangeIndex [accounts=" + entries.size() + ", overdrafts=" + utilizations.size() + "]";
+	}
+}
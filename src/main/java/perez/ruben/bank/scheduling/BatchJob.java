@@ -0,0 +1,114 @@
+package perez.ruben.bank.scheduling;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.exception.OverdraftException;
+
+// A batch job submitted to a LaneScheduler, which runs it in slices of accounts
+//
+// A step rejected with an OverdraftException (e.g. an overdraft the balance is already below) or with an
+// IllegalArgumentException is counted as failed, and the job goes on with the next account. Any other exception
+// stops the job, and is kept as its error.
+public final class BatchJob {
+
+	private interface Step {
+		void run() throws OverdraftException;
+	}
+
+	private final Iterator<Step> steps;
+	private final CountDownLatch done = new CountDownLatch(1);
+	// Only one slice of a job runs at a time, and the latch publishes the counters to #await
+	private volatile int processed;
+	private volatile int failed;
+	private volatile boolean cancelled;
+	private volatile Throwable error;
+	// When the job was last queued, in nanoseconds (guarded by the scheduler)
+	long queued;
+
+	<T extends Account> BatchJob(Iterable<T> accounts, BatchStep<? super T> step) {
+		Iterator<T> i = accounts.iterator();
+		steps = new Iterator<Step>() {
+			@Override
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			@Override
+			public Step next() {
+				T account = i.next();
+				return () -> step.apply(account);
+			}
+		};
+	}
+
+	// Runs steps until the scheduler asks it to yield, and returns whether the job is over (the scheduler then calls #finish)
+	// Always runs at least one step, so the job progresses even if interactive operations never stop
+	boolean runSlice(long sliceEnd, LaneScheduler scheduler) {
+		try {
+			do {
+				if (cancelled || !steps.hasNext())
+					return true;
+				try {
+					steps.next().run();
+					processed++;
+				} catch (OverdraftException | IllegalArgumentException e) {
+					failed++;
+				}
+			} while (!scheduler.shouldYield(sliceEnd));
+			return false;
+		} catch (RuntimeException e) {
+			error = e;
+			return true;
+		}
+	}
+
+	// Stops the job before its next account
+	public void cancel() {
+		cancelled = true;
+	}
+
+	void finish() {
+		done.countDown();
+	}
+
+	void abort() {
+		cancelled = true;
+		finish();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	// Waits for the job to finish and returns false if the timeout expired first
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return done.await(timeout, unit);
+	}
+
+	// Accounts the step was applied to
+	public int getProcessed() {
+		return processed;
+	}
+
+	// Accounts the step was rejected for
+	public int getFailed() {
+		return failed;
+	}
+
+	// The exception that stopped the job, if any
+	public Throwable getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchJob [processed=" + processed + ", failed=" + failed + ", done=" + isDone() + "]";
+	}
+}
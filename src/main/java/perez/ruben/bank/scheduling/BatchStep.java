@@ -0,0 +1,11 @@
+package perez.ruben.bank.scheduling;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.exception.OverdraftException;
+
+// The work of a batch job on one account (e.g. SavingsAccount::payInterest)
+@FunctionalInterface
+public interface BatchStep<T extends Account> {
+
+	void apply(T account) throws OverdraftException;
+}
@@ -0,0 +1,176 @@
+package perez.ruben.bank.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Timers kept in a hierarchy of wheels, one per digit (in base "slotsPerLevel") of their deadline in ticks
+//
+// A timer is kept in the level of the highest digit in which its deadline differs from the current tick, in the
+// slot of that digit. When the clock reaches that slot the timer moves to a lower level, or expires, so every
+// timer moves at most once per level. Scheduling, cancelling and expiring a timer are O(1), and advancing the
+// clock costs one step per tick plus the timers that move, whatever the number of timers scheduled.
+public class HierarchicalTimingWheel<T> {
+
+	public static final class Timeout<T> {
+		private final T item;
+		private final long deadline;
+		private Timeout<T> prev;
+		private Timeout<T> next;
+		// Bucket holding the timer (level -1 once it expired or was cancelled)
+		private int level = -1;
+		private int slot;
+
+		private Timeout(T item, long deadline) {
+			this.item = item;
+			this.deadline = deadline;
+		}
+
+		public T getItem() {
+			return item;
+		}
+	}
+
+	private final long tickMillis;
+	private final int bits;
+	private final int mask;
+	// Buckets by level and slot, allocated on first use; the last level holds timers already due
+	private final Timeout<T>[][] buckets;
+	private final int due;
+	private long currentTick;
+	private int size;
+
+	// "slotsPerLevel" must be a power of two
+	@SuppressWarnings("unchecked")
+	public HierarchicalTimingWheel(long tickMillis, int slotsPerLevel, long startMillis) {
+		if (tickMillis <= 0)
+			throw new IllegalArgumentException("The tick must be positive");
+		if (slotsPerLevel < 2 || Integer.bitCount(slotsPerLevel) != 1)
+			throw new IllegalArgumentException("The number of slots per level must be a power of two greater than one");
+
+		this.tickMillis = tickMillis;
+		bits = Integer.numberOfTrailingZeros(slotsPerLevel);
+		mask = slotsPerLevel - 1;
+		due = (63 + bits - 1) / bits;
+		buckets = (Timeout<T>[][]) new Timeout<?>[due + 1][];
+		buckets[due] = (Timeout<T>[]) new Timeout<?>[1];
+		currentTick = Math.floorDiv(startMillis, tickMillis);
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	// The item expires on the first call to #advance at or after "deadlineMillis" (or on the next one if it is past)
+	public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+		// Rounded up, so that timers never expire early
+		Timeout<T> timeout = new Timeout<>(item, -Math.floorDiv(-deadlineMillis, tickMillis));
+		place(timeout);
+		size++;
+		return timeout;
+	}
+
+	// Returns false if the timer had already expired or been cancelled
+	public synchronized boolean cancel(Timeout<T> timeout) {
+		if (timeout.level < 0)
+			return false;
+		unlink(timeout);
+		size--;
+		return true;
+	}
+
+	// Moves the clock forward and returns the items that expired
+	public synchronized List<T> advance(long nowMillis) {
+		long target = Math.floorDiv(nowMillis, tickMillis);
+		List<T> expired = new ArrayList<>();
+		expire(due, 0, expired);
+
+		while (currentTick < target) {
+			if (size == 0) {
+				currentTick = target;
+				break;
+			}
+
+			currentTick++;
+			// Levels whose lower digits just wrapped to zero hand their current slot down, highest first
+			int top = Math.min(Long.numberOfTrailingZeros(currentTick) / bits, due - 1);
+			for (int level = top; level >= 1; level--)
+				cascade(level, (int) (currentTick >>> (level * bits)) & mask);
+			expire(0, (int) currentTick & mask, expired);
+			expire(due, 0, expired);
+		}
+		return expired;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	private void place(Timeout<T> timeout) {
+		long deadline = timeout.deadline;
+		if (deadline <= currentTick) {
+			link(timeout, due, 0);
+			return;
+		}
+		int level = (63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / bits;
+		link(timeout, level, (int) (deadline >>> (level * bits)) & mask);
+	}
+
+	private void cascade(int level, int slot) {
+		Timeout<T>[] wheel = buckets[level];
+		if (wheel == null)
+			return;
+		Timeout<T> timeout = wheel[slot];
+		wheel[slot] = null;
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			place(timeout);
+			timeout = next;
+		}
+	}
+
+	private void expire(int level, int slot, List<T> expired) {
+		Timeout<T>[] wheel = buckets[level];
+		if (wheel == null)
+			return;
+		Timeout<T> timeout = wheel[slot];
+		wheel[slot] = null;
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			timeout.level = -1;
+			timeout.prev = timeout.next = null;
+			expired.add(timeout.item);
+			size--;
+			timeout = next;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void link(Timeout<T> timeout, int level, int slot) {
+		if (buckets[level] == null)
+			buckets[level] = (Timeout<T>[]) new Timeout<?>[mask + 1];
+		Timeout<T> head = buckets[level][slot];
+		timeout.prev = null;
+		timeout.next = head;
+		if (head != null)
+			head.prev = timeout;
+		buckets[level][slot] = timeout;
+		timeout.level = level;
+		timeout.slot = slot;
+	}
+
+	private void unlink(Timeout<T> timeout) {
+		if (timeout.prev != null)
+			timeout.prev.next = timeout.next;
+		else
+			buckets[timeout.level][timeout.slot] = timeout.next;
+		if (timeout.next != null)
+			timeout.next.prev = timeout.prev;
+		timeout.level = -1;
+		timeout.prev = timeout.next = null;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "HierarchicalTimingWheel [tickMillis=" + tickMillis + ", slots=" + (mask + 1) + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,87 @@
+package perez.ruben.bank.scheduling;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.Hold;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Places holds that are released automatically if they are not captured or released before they expire
+//
+// Holds wait for their expiry in a HierarchicalTimingWheel, so expiring them costs the same whatever the number
+// of accounts and holds. Holds closed before their expiry are not removed from the wheel (that would need
+// another lock on every capture): they stay until then and expire as no-ops.
+public class HoldManager implements Closeable {
+
+	private final LongSupplier clock;
+	private final HierarchicalTimingWheel<Hold> wheel;
+	private ScheduledExecutorService ticker;
+
+	public HoldManager() {
+		this(System::currentTimeMillis, 1000);
+	}
+
+	// "clock" gives the current time in milliseconds
+	public HoldManager(LongSupplier clock, long tickMillis) {
+		this.clock = Objects.requireNonNull(clock);
+		this.wheel = new HierarchicalTimingWheel<>(tickMillis, 256, clock.getAsLong());
+	}
+
+	public Hold place(Account account, double amount, long ttlMillis) throws OverdraftException {
+		if (ttlMillis < 0)
+			throw new IllegalArgumentException("The time to live may not be negative");
+
+		Hold hold = account.placeHold(amount);
+		wheel.schedule(hold, clock.getAsLong() + ttlMillis);
+		return hold;
+	}
+
+	// Releases the holds that expired and returns how many were still open
+	public int expire() {
+		int released = 0;
+		for (Hold hold : wheel.advance(clock.getAsLong()))
+			if (hold.release() > 0)
+				released++;
+		return released;
+	}
+
+	// Holds waiting for their expiry (including the ones already closed)
+	public int getPending() {
+		return wheel.size();
+	}
+
+	// Calls #expire on every tick from a background thread
+	public synchronized void start() {
+		if (ticker != null)
+			throw new IllegalStateException("The hold manager is already running");
+
+		ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "hold-expiry");
+			t.setDaemon(true);
+			return t;
+		});
+		long tick = wheel.getTickMillis();
+		ticker.scheduleAtFixedRate(this::expire, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void close() {
+		ScheduledExecutorService t;
+		synchronized (this) {
+			t = ticker;
+			ticker = null;
+		}
+		if (t != null)
+			t.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return "HoldManager [pending=" + getPending() + "]";
+	}
+}
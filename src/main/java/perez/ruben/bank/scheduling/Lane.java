@@ -0,0 +1,9 @@
+package perez.ruben.bank.scheduling;
+
+// Lanes of a LaneScheduler
+public enum Lane {
+	// Customer-facing operations (deposits, transfers...), which always run first
+	INTERACTIVE,
+	// Long jobs over many accounts (interest sweeps, bulk limit updates, imports...), which are throttled
+	BATCH
+}
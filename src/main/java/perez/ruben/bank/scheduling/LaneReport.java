@@ -0,0 +1,59 @@
+package perez.ruben.bank.scheduling;
+
+// How well a lane of a LaneScheduler met its latency target
+//
+// The latency of an interactive operation goes from its submission to its completion; the one of a batch job
+// from the moment it was queued (when submitted, or when it yielded) to the end of the slice it then ran.
+public final class LaneReport {
+
+	private final Lane lane;
+	private final long targetNanos;
+	private final long count;
+	private final long withinTarget;
+	private final long totalNanos;
+	private final long maxNanos;
+
+	LaneReport(Lane lane, long targetNanos, long count, long withinTarget, long totalNanos, long maxNanos) {
+		this.lane = lane;
+		this.targetNanos = targetNanos;
+		this.count = count;
+		this.withinTarget = withinTarget;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+	}
+
+	public Lane getLane() {
+		return lane;
+	}
+
+	public long getTargetNanos() {
+		return targetNanos;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getWithinTarget() {
+		return withinTarget;
+	}
+
+	// Fraction of the operations (or slices) that completed within the target (1 if there were none)
+	public double getAttainment() {
+		return count == 0 ? 1 : withinTarget / (double) count;
+	}
+
+	public long getMeanNanos() {
+		return count == 0 ? 0 : totalNanos / count;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d of %d within %.1f us (%.1f%%), mean %.1f us, max %.1f us", lane, withinTarget, count,
+				targetNanos / 1e3, 100 * getAttainment(), getMeanNanos() / 1e3, maxNanos / 1e3);
+	}
+}
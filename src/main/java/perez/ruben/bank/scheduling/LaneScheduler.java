@@ -0,0 +1,287 @@
+package perez.ruben.bank.scheduling;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import perez.ruben.bank.accounts.Account;
+
+// Runs interactive operations and batch jobs on a pool of workers, with strict priority for the interactive ones
+//
+// A worker always takes a queued interactive operation before any batch work. Batch jobs run in slices, and a
+// slice yields at the boundary between two accounts as soon as an interactive operation is queued (or when it
+// took "sliceNanos"), so an operation waits at most for the step of one account. Batch work is also throttled:
+// - CPU: slices only start while the batch lane used less than "batchShare" of the time of the workers
+// - Locks: at most "batchLocks" slices run at once, and a step works on one account, so batch jobs never hold
+//   more than "batchLocks" account locks
+//
+// The latency of each lane is measured against its target (see LaneReport).
+public class LaneScheduler implements Closeable {
+
+	// Records its latency before completing, so it is in the report once the future is done
+	private final class Operation<T> extends FutureTask<T> {
+		private final long submitted;
+
+		Operation(Callable<T> callable, long submitted) {
+			super(callable);
+			this.submitted = submitted;
+		}
+
+		@Override
+		protected void set(T value) {
+			record(Lane.INTERACTIVE, System.nanoTime() - submitted);
+			super.set(value);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			record(Lane.INTERACTIVE, System.nanoTime() - submitted);
+			super.setException(t);
+		}
+	}
+
+	private static final class LaneStats {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder withinTarget = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+	}
+
+	private final int workers;
+	private final double batchShare;
+	private final long sliceNanos;
+	private final Semaphore batchLocks;
+	private final Map<Lane, Long> targets = new EnumMap<>(Lane.class);
+	private final Map<Lane, LaneStats> stats = new EnumMap<>(Lane.class);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition work = lock.newCondition();
+	// Queues, state and threads are guarded by the lock
+	private final ArrayDeque<Operation<?>> interactive = new ArrayDeque<>();
+	private final ArrayDeque<BatchJob> batch = new ArrayDeque<>();
+	// Number of queued interactive operations, read by batch slices without locking to know when to yield
+	private volatile int interactiveQueued;
+	private volatile boolean closed;
+	// No batch slice starts before this time (in nanoseconds), which keeps the batch lane within its share
+	private long batchResumeAt = System.nanoTime();
+	private Thread[] threads;
+
+	// Batch work gets a quarter of the workers, and interactive operations are expected within a millisecond
+	public LaneScheduler() {
+		this(Runtime.getRuntime().availableProcessors(), 0.25, Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+				TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	public LaneScheduler(int workers, double batchShare, int batchLocks, long sliceNanos, long interactiveTargetNanos,
+			long batchTargetNanos) {
+		if (workers <= 0 || batchLocks <= 0)
+			throw new IllegalArgumentException("The workers and batch locks must be positive");
+		if (!(batchShare > 0 && batchShare <= 1))
+			throw new IllegalArgumentException("The batch share must be in (0, 1]");
+		if (sliceNanos <= 0 || interactiveTargetNanos <= 0 || batchTargetNanos <= 0)
+			throw new IllegalArgumentException("The slice and the latency targets must be positive");
+
+		this.workers = workers;
+		this.batchShare = batchShare;
+		this.sliceNanos = sliceNanos;
+		this.batchLocks = new Semaphore(batchLocks);
+		targets.put(Lane.INTERACTIVE, interactiveTargetNanos);
+		targets.put(Lane.BATCH, batchTargetNanos);
+		for (Lane lane : Lane.values())
+			stats.put(lane, new LaneStats());
+	}
+
+	// Queues an interactive operation (e.g. a deposit or a transfer)
+	public <T> Future<T> submit(Callable<T> operation) {
+		Operation<T> op = new Operation<>(Objects.requireNonNull(operation), System.nanoTime());
+		lock.lock();
+		try {
+			checkOpen();
+			interactive.add(op);
+			interactiveQueued = interactive.size();
+			work.signal();
+		} finally {
+			lock.unlock();
+		}
+		return op;
+	}
+
+	// Queues a batch job that applies "step" to every account (e.g. SavingsAccount::payInterest)
+	// The accounts are iterated lazily, from the workers, so they may come from a store being updated
+	public <T extends Account> BatchJob submitBatch(Iterable<T> accounts, BatchStep<? super T> step) {
+		BatchJob job = new BatchJob(Objects.requireNonNull(accounts), Objects.requireNonNull(step));
+		lock.lock();
+		try {
+			checkOpen();
+			job.queued = System.nanoTime();
+			batch.add(job);
+			work.signal();
+		} finally {
+			lock.unlock();
+		}
+		return job;
+	}
+
+	private void checkOpen() {
+		if (closed)
+			throw new IllegalStateException("The scheduler is closed");
+	}
+
+	// Whether a batch slice must stop before its next account
+	boolean shouldYield(long sliceEnd) {
+		return interactiveQueued > 0 || closed || System.nanoTime() - sliceEnd >= 0;
+	}
+
+	public LaneReport getReport(Lane lane) {
+		LaneStats s = stats.get(lane);
+		return new LaneReport(lane, targets.get(lane), s.count.sum(), s.withinTarget.sum(), s.totalNanos.sum(),
+				s.maxNanos.get());
+	}
+
+	private void record(Lane lane, long latency) {
+		LaneStats s = stats.get(lane);
+		s.count.increment();
+		if (latency <= targets.get(lane))
+			s.withinTarget.increment();
+		s.totalNanos.add(latency);
+		s.maxNanos.accumulateAndGet(latency, Math::max);
+	}
+
+	// Starts the workers
+	public void start() {
+		lock.lock();
+		try {
+			checkOpen();
+			if (threads != null)
+				throw new IllegalStateException("The scheduler is already running");
+
+			threads = new Thread[workers];
+			for (int i = 0; i < workers; i++) {
+				threads[i] = new Thread(this::work, "lanes-" + i);
+				threads[i].setDaemon(true);
+				threads[i].start();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void work() {
+		while (true) {
+			Object task;
+			lock.lock();
+			try {
+				task = next();
+			} catch (InterruptedException e) {
+				return;
+			} finally {
+				lock.unlock();
+			}
+			if (task == null)
+				return;
+
+			if (task instanceof Operation)
+				((Operation<?>) task).run();
+			else
+				runSlice((BatchJob) task);
+		}
+	}
+
+	// Must be called with the lock held; returns null once the scheduler is closed and no operation is left
+	private Object next() throws InterruptedException {
+		while (true) {
+			Operation<?> op = interactive.poll();
+			if (op != null) {
+				interactiveQueued = interactive.size();
+				return op;
+			}
+			if (closed)
+				return null;
+
+			if (!batch.isEmpty()) {
+				long wait = batchResumeAt - System.nanoTime();
+				if (wait > 0) {
+					work.awaitNanos(wait);
+					continue;
+				}
+				if (batchLocks.tryAcquire())
+					return batch.poll();
+			}
+			work.await();
+		}
+	}
+
+	private void runSlice(BatchJob job) {
+		long start = System.nanoTime();
+		boolean finished;
+		try {
+			finished = job.runSlice(start + sliceNanos, this);
+		} finally {
+			batchLocks.release();
+		}
+		long end = System.nanoTime();
+		record(Lane.BATCH, end - job.queued);
+		if (finished)
+			job.finish();
+
+		lock.lock();
+		try {
+			// The slice is charged to the batch lane as if the workers had shared it, so over time the lane
+			// gets "batchShare" of their time
+			long charge = (long) ((end - start) / (batchShare * workers));
+			if (batchResumeAt - start < 0)
+				batchResumeAt = start;
+			batchResumeAt += charge;
+			if (!finished) {
+				if (closed)
+					job.abort();
+				else {
+					job.queued = end;
+					batch.add(job);
+				}
+			}
+			work.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Runs the interactive operations already queued and stops the workers; batch jobs stop at their next account
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			for (BatchJob job : batch)
+				job.abort();
+			batch.clear();
+			// Without workers nothing would run them
+			if (threads == null) {
+				for (Operation<?> op : interactive)
+					op.cancel(false);
+				interactive.clear();
+				interactiveQueued = 0;
+			}
+			work.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LaneScheduler [workers=" + workers + ", batchShare=" + batchShare + ", interactiveQueued=" + interactiveQueued
+				+ "]";
+	}
+}
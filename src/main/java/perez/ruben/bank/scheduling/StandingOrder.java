@@ -0,0 +1,112 @@
+package perez.ruben.bank.scheduling;
+
+import java.util.Objects;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+
+// A transfer from one checking account to another that is executed every "periodMillis" from "firstDueMillis"
+// (or only once if the period is zero), with the same semantics as CheckingAccount#transfer
+public class StandingOrder {
+
+	private final CheckingAccount from;
+	private final CheckingAccount to;
+	private final double amount;
+	private final long periodMillis;
+
+	// Guarded by this
+	private long nextDue;
+	private int attempts;
+	private boolean cancelled;
+	private HierarchicalTimingWheel.Timeout<StandingOrder> timeout;
+
+	private volatile long executions;
+	private volatile long failures;
+
+	public StandingOrder(CheckingAccount from, CheckingAccount to, double amount, long firstDueMillis, long periodMillis) {
+		if (periodMillis < 0)
+			throw new IllegalArgumentException("The period may not be negative");
+
+		this.from = Objects.requireNonNull(from, "The source account may not be null");
+		this.to = Objects.requireNonNull(to, "The destination account may not be null");
+		if (from.getCurrencyId() != to.getCurrencyId())
+			throw new IllegalArgumentException("The accounts of a standing order must have the same currency");
+		this.amount = amount;
+		this.nextDue = firstDueMillis;
+		this.periodMillis = periodMillis;
+	}
+
+	public CheckingAccount getFrom() {
+		return from;
+	}
+
+	public CheckingAccount getTo() {
+		return to;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public long getPeriodMillis() {
+		return periodMillis;
+	}
+
+	public synchronized long getNextDue() {
+		return nextDue;
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	// Occurrences executed successfully
+	public long getExecutions() {
+		return executions;
+	}
+
+	// Occurrences skipped because the transfer was still rejected after all the retries
+	public long getFailures() {
+		return failures;
+	}
+
+	// Schedules the next attempt, unless the order was cancelled
+	synchronized void schedule(HierarchicalTimingWheel<StandingOrder> wheel, long dueMillis) {
+		if (!cancelled)
+			timeout = wheel.schedule(this, dueMillis);
+	}
+
+	synchronized boolean cancel(HierarchicalTimingWheel<StandingOrder> wheel) {
+		if (cancelled)
+			return false;
+		cancelled = true;
+		if (timeout != null)
+			wheel.cancel(timeout);
+		return true;
+	}
+
+	// Returns the number of attempts made for the current occurrence
+	synchronized int attempted() {
+		return ++attempts;
+	}
+
+	// Ends the current occurrence and returns the due time of the next one, or -1 if there is none
+	synchronized long completed(boolean succeeded) {
+		attempts = 0;
+		if (succeeded)
+			executions++;
+		else
+			failures++;
+
+		if (periodMillis == 0) {
+			cancelled = true;
+			return -1;
+		}
+		nextDue += periodMillis;
+		return nextDue;
+	}
+
+	@Override
+	public String toString() {
+		return "StandingOrder [from=" + from.getId() + ", to=" + to.getId() + ", amount=" + amount + ", periodMillis=" + periodMillis + "]";
+	}
+}
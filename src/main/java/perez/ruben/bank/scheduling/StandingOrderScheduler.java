@@ -0,0 +1,115 @@
+package perez.ruben.bank.scheduling;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+// Executes standing orders when they come due
+//
+// Orders wait in a HierarchicalTimingWheel, so the cost of scheduling and of every tick does not depend on the
+// number of orders. The orders that come due together are executed as one parallel batch. A transfer rejected
+// with an OverdraftException is retried after "retryDelayMillis", up to "maxRetries" times, and then that
+// occurrence is skipped (and counted as a failure) and the order waits for the next one. Any other exception
+// (e.g. an account whose currency changed) skips the occurrence right away, so it never stops the batch.
+public class StandingOrderScheduler implements Closeable {
+
+	private final LongSupplier clock;
+	private final HierarchicalTimingWheel<StandingOrder> wheel;
+	private final int maxRetries;
+	private final long retryDelayMillis;
+	private ScheduledExecutorService ticker;
+
+	public StandingOrderScheduler() {
+		this(System::currentTimeMillis, 1000, 3, 60_000);
+	}
+
+	// "clock" gives the current time in milliseconds
+	public StandingOrderScheduler(LongSupplier clock, long tickMillis, int maxRetries, long retryDelayMillis) {
+		if (maxRetries < 0 || retryDelayMillis < 0)
+			throw new IllegalArgumentException("The retries and their delay may not be negative");
+
+		this.clock = Objects.requireNonNull(clock);
+		this.wheel = new HierarchicalTimingWheel<>(tickMillis, 256, clock.getAsLong());
+		this.maxRetries = maxRetries;
+		this.retryDelayMillis = retryDelayMillis;
+	}
+
+	public void schedule(StandingOrder order) {
+		order.schedule(wheel, order.getNextDue());
+	}
+
+	// Returns false if the order was already cancelled (or was a single order already executed)
+	public boolean cancel(StandingOrder order) {
+		return order.cancel(wheel);
+	}
+
+	// Number of pending executions (including retries)
+	public int getPending() {
+		return wheel.size();
+	}
+
+	// Executes the orders that are due and returns how many transfers were attempted
+	public synchronized int runDue() {
+		long now = clock.getAsLong();
+		List<StandingOrder> due = wheel.advance(now);
+		due.parallelStream().forEach(order -> execute(order, now));
+		return due.size();
+	}
+
+	private void execute(StandingOrder order, long now) {
+		if (order.isCancelled())
+			return;
+
+		long next;
+		try {
+			order.getFrom().transfer(order.getAmount(), order.getTo());
+			next = order.completed(true);
+		} catch (OverdraftException e) {
+			if (order.attempted() <= maxRetries) {
+				order.schedule(wheel, now + retryDelayMillis);
+				return;
+			}
+			next = order.completed(false);
+		} catch (RuntimeException e) {
+			next = order.completed(false);
+		}
+		if (next >= 0)
+			order.schedule(wheel, next);
+	}
+
+	// Calls #runDue on every tick from a background thread
+	public synchronized void start() {
+		if (ticker != null)
+			throw new IllegalStateException("The scheduler is already running");
+
+		ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "standing-orders");
+			t.setDaemon(true);
+			return t;
+		});
+		long tick = wheel.getTickMillis();
+		ticker.scheduleAtFixedRate(this::runDue, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void close() {
+		ScheduledExecutorService t;
+		synchronized (this) {
+			t = ticker;
+			ticker = null;
+		}
+		if (t != null)
+			t.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return "StandingOrderScheduler [pending=" + getPending() + "]";
+	}
+}
@@ -0,0 +1,136 @@
+package perez.ruben.bank.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Append-only log of the decisions taken by a TransactionCoordinator, one line per record:
+//
+//   BEGIN <transaction> <debit shard> <credit shard>
+//   COMMIT <transaction>
+//   ABORT <transaction>
+//   END <transaction>
+//
+// Only COMMIT records are forced to disk before going on. Transactions without a COMMIT record are presumed
+// to be aborted, so losing any other record in a crash is harmless.
+public class CoordinatorLog implements Closeable {
+
+	public static final class Entry {
+		private final long transaction;
+		private final int debitShard;
+		private final int creditShard;
+		private boolean committed;
+
+		Entry(long transaction, int debitShard, int creditShard) {
+			this.transaction = transaction;
+			this.debitShard = debitShard;
+			this.creditShard = creditShard;
+		}
+
+		public long getTransaction() {
+			return transaction;
+		}
+
+		public int getDebitShard() {
+			return debitShard;
+		}
+
+		public int getCreditShard() {
+			return creditShard;
+		}
+
+		public boolean isCommitted() {
+			return committed;
+		}
+	}
+
+	private final FileChannel channel;
+	// Transactions found in the log without an END record when it was opened
+	private final Map<Long, Entry> pending = new LinkedHashMap<>();
+	private long lastTransaction = -1;
+
+	public CoordinatorLog(Path file) throws IOException {
+		if (Files.exists(file))
+			replay(file);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private void replay(Path file) throws IOException {
+		for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+			String[] fields = line.split(" ");
+			// A record cut in half by a crash is ignored
+			if (fields.length < 2)
+				continue;
+			long transaction;
+			try {
+				transaction = Long.parseLong(fields[1]);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			lastTransaction = Math.max(lastTransaction, transaction);
+
+			switch (fields[0]) {
+			case "BEGIN":
+				if (fields.length == 4)
+					pending.put(transaction, new Entry(transaction, Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+				break;
+			case "COMMIT":
+				Entry entry = pending.get(transaction);
+				if (entry != null)
+					entry.committed = true;
+				break;
+			case "END":
+				pending.remove(transaction);
+				break;
+			default:
+				// ABORT records are informative only
+			}
+		}
+	}
+
+	public Map<Long, Entry> getPending() {
+		return Collections.unmodifiableMap(pending);
+	}
+
+	// The highest transaction id found in the log when it was opened (-1 if none)
+	public long getLastTransaction() {
+		return lastTransaction;
+	}
+
+	public void begin(long transaction, int debitShard, int creditShard) throws IOException {
+		append("BEGIN " + transaction + " " + debitShard + " " + creditShard + "\n", false);
+	}
+
+	public void commit(long transaction) throws IOException {
+		append("COMMIT " + transaction + "\n", true);
+	}
+
+	public void abort(long transaction) throws IOException {
+		append("ABORT " + transaction + "\n", false);
+	}
+
+	public void end(long transaction) throws IOException {
+		append("END " + transaction + "\n", false);
+	}
+
+	private synchronized void append(String record, boolean force) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.US_ASCII));
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		if (force)
+			channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
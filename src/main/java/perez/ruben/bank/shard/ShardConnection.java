@@ -0,0 +1,139 @@
+package perez.ruben.bank.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+// Client side of a connection to a single ShardServer
+//
+// Calls are synchronized, so a connection may be shared, but it only runs one request at a time.
+// Requests rejected by the server (unknown account, duplicated id...) throw an IllegalArgumentException.
+public class ShardConnection implements Closeable {
+
+	private final InetSocketAddress address;
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	public ShardConnection(InetSocketAddress address) throws IOException {
+		this.address = address;
+		socket = new Socket(address.getAddress(), address.getPort());
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+	}
+
+	public InetSocketAddress getAddress() {
+		return address;
+	}
+
+	public synchronized void open(long id, String owner, double overdraft) throws IOException {
+		out.writeByte(ShardProtocol.OPEN);
+		out.writeLong(id);
+		out.writeUTF(owner);
+		out.writeDouble(overdraft);
+		readUnchecked();
+	}
+
+	public synchronized double deposit(long id, double amount) throws IOException, OverdraftException {
+		out.writeByte(ShardProtocol.DEPOSIT);
+		out.writeLong(id);
+		out.writeDouble(amount);
+		return read();
+	}
+
+	public synchronized void setOverdraft(long id, double overdraft) throws IOException, OverdraftException {
+		out.writeByte(ShardProtocol.SET_OVERDRAFT);
+		out.writeLong(id);
+		out.writeDouble(overdraft);
+		read();
+	}
+
+	public synchronized double getBalance(long id) throws IOException {
+		out.writeByte(ShardProtocol.BALANCE);
+		out.writeLong(id);
+		return readUnchecked();
+	}
+
+	// Transfer between two accounts of this shard
+	public synchronized void transfer(long fromId, long toId, double amount) throws IOException, OverdraftException {
+		out.writeByte(ShardProtocol.TRANSFER);
+		out.writeLong(fromId);
+		out.writeLong(toId);
+		out.writeDouble(amount);
+		read();
+	}
+
+	public synchronized void prepare(long transaction, long id, double amount) throws IOException, OverdraftException {
+		out.writeByte(ShardProtocol.PREPARE);
+		out.writeLong(transaction);
+		out.writeLong(id);
+		out.writeDouble(amount);
+		read();
+	}
+
+	public synchronized void commit(long transaction) throws IOException {
+		out.writeByte(ShardProtocol.COMMIT);
+		out.writeLong(transaction);
+		readUnchecked();
+	}
+
+	public synchronized void abort(long transaction) throws IOException {
+		out.writeByte(ShardProtocol.ABORT);
+		out.writeLong(transaction);
+		readUnchecked();
+	}
+
+	// Transactions prepared in the shard that have not been committed or aborted yet
+	public synchronized long[] inDoubt() throws IOException {
+		out.writeByte(ShardProtocol.IN_DOUBT);
+		out.flush();
+		expectOk(in.readByte());
+		long[] transactions = new long[in.readInt()];
+		for (int i = 0; i < transactions.length; i++)
+			transactions[i] = in.readLong();
+		return transactions;
+	}
+
+	private double read() throws IOException, OverdraftException {
+		out.flush();
+		byte status = in.readByte();
+		if (status == ShardProtocol.OVERDRAFT)
+			throw new OverdraftException(in.readDouble(), in.readDouble());
+		expectOk(status);
+		return in.readDouble();
+	}
+
+	// For operations that can not overdraft
+	private double readUnchecked() throws IOException {
+		try {
+			return read();
+		} catch (OverdraftException e) {
+			throw new IOException("Unexpected overdraft from " + address, e);
+		}
+	}
+
+	private void expectOk(byte status) throws IOException {
+		if (status == ShardProtocol.REJECTED)
+			throw new IllegalArgumentException(in.readUTF());
+		if (status != ShardProtocol.OK)
+			throw new IOException("Unexpected status " + status + " from " + address);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	@Override
+	public String toString() {
+		return "ShardConnection [address=" + address + "]";
+	}
+}
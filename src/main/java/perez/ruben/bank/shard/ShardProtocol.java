@@ -0,0 +1,28 @@
+package perez.ruben.bank.shard;
+
+// Wire format shared by ShardServer and ShardConnection
+//
+// Every request is an operation code followed by its arguments, written with DataOutputStream.
+// Every response is a status code followed by:
+// - OK: the balance of the account (IN_DOUBT answers with a count and that many transaction ids instead)
+// - OVERDRAFT: the amount and balance of the rejected operation
+// - REJECTED: a UTF string with the reason (unknown account, duplicated id, invalid argument...)
+final class ShardProtocol {
+
+	static final byte OPEN = 1;           // id, owner, overdraft
+	static final byte DEPOSIT = 2;        // id, amount
+	static final byte SET_OVERDRAFT = 3;  // id, overdraft
+	static final byte BALANCE = 4;        // id
+	static final byte TRANSFER = 5;       // from id, to id, amount
+	static final byte PREPARE = 6;        // transaction id, account id, amount
+	static final byte COMMIT = 7;         // transaction id
+	static final byte ABORT = 8;          // transaction id
+	static final byte IN_DOUBT = 9;       // no arguments
+
+	static final byte OK = 0;
+	static final byte OVERDRAFT = 1;
+	static final byte REJECTED = 2;
+
+	private ShardProtocol() {
+	}
+}
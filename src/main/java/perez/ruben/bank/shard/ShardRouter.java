@@ -0,0 +1,75 @@
+package perez.ruben.bank.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+// Client of a set of shards, with the accounts partitioned by id (account id modulo number of shards)
+//
+// Operations on a single account, and transfers between accounts of the same shard, are sent to the owning
+// shard. Transfers between shards go through a TransactionCoordinator.
+public class ShardRouter implements Closeable {
+
+	private final List<ShardConnection> shards;
+	private final TransactionCoordinator coordinator;
+
+	public ShardRouter(List<InetSocketAddress> addresses, int coordinatorId, Path coordinatorLog) throws IOException {
+		if (addresses.isEmpty())
+			throw new IllegalArgumentException("At least one shard is needed");
+
+		List<ShardConnection> connections = new ArrayList<>(addresses.size());
+		for (InetSocketAddress address : addresses)
+			connections.add(new ShardConnection(address));
+		shards = Collections.unmodifiableList(connections);
+
+		coordinator = new TransactionCoordinator(coordinatorId, shards, coordinatorLog);
+		coordinator.recover();
+	}
+
+	public int getShardCount() {
+		return shards.size();
+	}
+
+	public int shardOf(long id) {
+		return (int) Math.floorMod(id, (long) shards.size());
+	}
+
+	public void openAccount(long id, String owner, double overdraft) throws IOException {
+		shards.get(shardOf(id)).open(id, owner, overdraft);
+	}
+
+	public double deposit(long id, double amount) throws IOException, OverdraftException {
+		return shards.get(shardOf(id)).deposit(id, amount);
+	}
+
+	public void setOverdraft(long id, double overdraft) throws IOException, OverdraftException {
+		shards.get(shardOf(id)).setOverdraft(id, overdraft);
+	}
+
+	public double getBalance(long id) throws IOException {
+		return shards.get(shardOf(id)).getBalance(id);
+	}
+
+	public void transfer(long fromId, long toId, double amount) throws IOException, OverdraftException {
+		int fromShard = shardOf(fromId);
+		int toShard = shardOf(toId);
+
+		if (fromShard == toShard)
+			shards.get(fromShard).transfer(fromId, toId, amount);
+		else
+			coordinator.transfer(fromShard, fromId, toShard, toId, amount);
+	}
+
+	@Override
+	public void close() throws IOException {
+		coordinator.close();
+		for (ShardConnection shard : shards)
+			shard.close();
+	}
+}
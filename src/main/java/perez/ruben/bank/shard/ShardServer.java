@@ -0,0 +1,226 @@
+package perez.ruben.bank.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.store.AccountStore;
+
+// An engine process owning a partition of the checking accounts, reachable on the loopback interface
+//
+// Besides the plain account operations, the server takes part in the two-phase commit of cross-shard transfers:
+// on PREPARE, withdrawals are applied right away (so the overdraft limit is checked and the money is reserved)
+// and deposits are only recorded. COMMIT applies the recorded deposits and ABORT gives back the withdrawals.
+public class ShardServer implements Closeable {
+
+	private final AccountStore store = new AccountStore();
+	private final ConcurrentHashMap<Long, PreparedPosting> prepared = new ConcurrentHashMap<>();
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	// Guarded by itself, so a COMMIT or ABORT waits for the PREPARE that published it to withdraw the money
+	private static final class PreparedPosting {
+		final CheckingAccount account;
+		final double amount;
+		boolean withdrawn;
+
+		PreparedPosting(CheckingAccount account, double amount) {
+			this.account = account;
+			this.amount = amount;
+		}
+	}
+
+	public ShardServer(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public void start() {
+		executor.submit(() -> {
+			while (!serverSocket.isClosed()) {
+				try {
+					Socket socket = serverSocket.accept();
+					socket.setTcpNoDelay(true);
+					executor.submit(() -> serve(socket));
+				} catch (IOException e) {
+					// The server socket was closed
+				}
+			}
+		});
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			while (true) {
+				handle(in.readByte(), in, out);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The client closed the connection, or it broke (or sent an unknown operation): either way the
+			// connection can not be used anymore and is dropped
+		}
+	}
+
+	private void handle(byte operation, DataInputStream in, DataOutputStream out) throws IOException {
+		// Every argument of a request is read before its accounts are looked up, so a rejected request does not
+		// leave bytes behind on the connection
+		try {
+			switch (operation) {
+			case ShardProtocol.OPEN: {
+				long id = in.readLong();
+				String owner = in.readUTF();
+				double overdraft = in.readDouble();
+				store.add(new CheckingAccount(id, owner, overdraft));
+				writeBalance(out, 0);
+				break;
+			}
+			case ShardProtocol.DEPOSIT: {
+				long id = in.readLong();
+				double amount = in.readDouble();
+				CheckingAccount account = account(id);
+				account.deposit(amount);
+				writeBalance(out, account.getBalance());
+				break;
+			}
+			case ShardProtocol.SET_OVERDRAFT: {
+				long id = in.readLong();
+				double overdraft = in.readDouble();
+				CheckingAccount account = account(id);
+				account.setOverdraft(overdraft);
+				writeBalance(out, account.getBalance());
+				break;
+			}
+			case ShardProtocol.BALANCE: {
+				writeBalance(out, account(in.readLong()).getBalance());
+				break;
+			}
+			case ShardProtocol.TRANSFER: {
+				long fromId = in.readLong();
+				long toId = in.readLong();
+				double amount = in.readDouble();
+				CheckingAccount from = account(fromId);
+				CheckingAccount to = account(toId);
+				from.transfer(amount, to);
+				writeBalance(out, from.getBalance());
+				break;
+			}
+			case ShardProtocol.PREPARE: {
+				long transaction = in.readLong();
+				long id = in.readLong();
+				double amount = in.readDouble();
+				CheckingAccount account = account(id);
+				prepare(transaction, account, amount);
+				writeBalance(out, account.getBalance());
+				break;
+			}
+			case ShardProtocol.COMMIT: {
+				PreparedPosting posting = prepared.remove(in.readLong());
+				if (posting != null && posting.amount > 0) {
+					synchronized (posting) {
+						posting.account.deposit(posting.amount);
+					}
+				}
+				writeBalance(out, posting == null ? 0 : posting.account.getBalance());
+				break;
+			}
+			case ShardProtocol.ABORT: {
+				PreparedPosting posting = prepared.remove(in.readLong());
+				if (posting != null) {
+					synchronized (posting) {
+						if (posting.withdrawn)
+							posting.account.deposit(-posting.amount);
+					}
+				}
+				writeBalance(out, posting == null ? 0 : posting.account.getBalance());
+				break;
+			}
+			case ShardProtocol.IN_DOUBT: {
+				Long[] transactions = prepared.keySet().toArray(new Long[0]);
+				out.writeByte(ShardProtocol.OK);
+				out.writeInt(transactions.length);
+				for (long transaction : transactions)
+					out.writeLong(transaction);
+				break;
+			}
+			default:
+				throw new IOException("Unknown operation " + operation);
+			}
+		} catch (OverdraftException oe) {
+			out.writeByte(ShardProtocol.OVERDRAFT);
+			out.writeDouble(oe.getAmount());
+			out.writeDouble(oe.getBalance());
+		} catch (IllegalArgumentException | NullPointerException e) {
+			out.writeByte(ShardProtocol.REJECTED);
+			out.writeUTF(String.valueOf(e.getMessage()));
+		}
+	}
+
+	private void prepare(long transaction, CheckingAccount account, double amount) throws OverdraftException {
+		PreparedPosting posting = new PreparedPosting(account, amount);
+		synchronized (posting) {
+			// The slot is taken before the withdrawal, so concurrent duplicates can not both withdraw
+			PreparedPosting existing = prepared.putIfAbsent(transaction, posting);
+			if (existing != null) {
+				// Preparing twice the same posting (e.g. a retry after a lost response) has no effect, but a
+				// transaction has only one posting per shard
+				if (existing.account != account || existing.amount != amount)
+					throw new IllegalArgumentException("Transaction " + transaction + " is already prepared with another posting");
+				return;
+			}
+
+			// Withdrawals are applied now so that the commit can never fail
+			if (amount < 0) {
+				try {
+					account.deposit(amount);
+				} catch (OverdraftException e) {
+					prepared.remove(transaction, posting);
+					throw e;
+				}
+				posting.withdrawn = true;
+			}
+		}
+	}
+
+	private CheckingAccount account(long id) {
+		return store.get(id, CheckingAccount.class);
+	}
+
+	private static void writeBalance(DataOutputStream out, double balance) throws IOException {
+		out.writeByte(ShardProtocol.OK);
+		out.writeDouble(balance);
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	// Runs a shard in its own process: java perez.ruben.bank.shard.ShardServer [port]
+	public static void main(String[] args) throws IOException, InterruptedException {
+		ShardServer server = new ShardServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+		server.start();
+
+		// Launchers read the port from this line when started with port 0
+		System.out.println("Shard listening on port " + server.getPort());
+		System.out.flush();
+
+		Thread.currentThread().join();
+	}
+}
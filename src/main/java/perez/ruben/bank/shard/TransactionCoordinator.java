@@ -0,0 +1,111 @@
+package perez.ruben.bank.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import perez.ruben.bank.exception.OverdraftException;
+
+// Runs transfers between accounts of different shards with a two-phase commit (presumed abort)
+// Transfers between accounts of the same shard are sent to it as plain transfers.
+//
+// Transaction ids carry the coordinator id in their upper bits, so several coordinators (e.g. one per router)
+// can share the same shards as long as each of them has its own id and log.
+public class TransactionCoordinator implements Closeable {
+
+	static final int SEQUENCE_BITS = 40;
+	static final int MAX_COORDINATOR_ID = (1 << (63 - SEQUENCE_BITS)) - 1;
+
+	private final int coordinatorId;
+	private final List<ShardConnection> shards;
+	private final CoordinatorLog log;
+	private final AtomicLong nextTransaction;
+
+	public TransactionCoordinator(int coordinatorId, List<ShardConnection> shards, Path logFile) throws IOException {
+		if (coordinatorId < 0 || coordinatorId > MAX_COORDINATOR_ID)
+			throw new IllegalArgumentException("The coordinator id must be between 0 and " + MAX_COORDINATOR_ID);
+
+		this.coordinatorId = coordinatorId;
+		this.shards = Objects.requireNonNull(shards);
+		log = new CoordinatorLog(logFile);
+
+		long first = (long) coordinatorId << SEQUENCE_BITS;
+		nextTransaction = new AtomicLong(Math.max(first, log.getLastTransaction() + 1));
+	}
+
+	public int getCoordinatorId() {
+		return coordinatorId;
+	}
+
+	// Moves "amount" from the account "fromId" of shard "fromShard" to the account "toId" of shard "toShard"
+	// As with CheckingAccount#transfer, a negative amount moves money the other way
+	public void transfer(int fromShard, long fromId, int toShard, long toId, double amount) throws IOException, OverdraftException {
+		// Shards hold one posting per transaction, so transfers within a shard are made by the shard itself
+		if (fromShard == toShard) {
+			shards.get(fromShard).transfer(fromId, toId, amount);
+			return;
+		}
+
+		// The account that pays is prepared first: if it overdrafts, nothing else has to be done
+		int debitShard = amount >= 0 ? fromShard : toShard;
+		long debitId = amount >= 0 ? fromId : toId;
+		int creditShard = amount >= 0 ? toShard : fromShard;
+		long creditId = amount >= 0 ? toId : fromId;
+		double value = Math.abs(amount);
+
+		long transaction = nextTransaction.getAndIncrement();
+		log.begin(transaction, debitShard, creditShard);
+
+		try {
+			shards.get(debitShard).prepare(transaction, debitId, -value);
+			shards.get(creditShard).prepare(transaction, creditId, value);
+		} catch (OverdraftException | IOException | RuntimeException e) {
+			log.abort(transaction);
+			abort(transaction, debitShard, creditShard);
+			throw e;
+		}
+
+		// From this point on, the transfer will be completed even if we crash (see #recover)
+		log.commit(transaction);
+		shards.get(debitShard).commit(transaction);
+		shards.get(creditShard).commit(transaction);
+		log.end(transaction);
+	}
+
+	private void abort(long transaction, int debitShard, int creditShard) throws IOException {
+		shards.get(debitShard).abort(transaction);
+		shards.get(creditShard).abort(transaction);
+		log.end(transaction);
+	}
+
+	// Completes the transactions left unfinished by a previous run of this coordinator
+	// Must be called before any new transfer is started
+	public void recover() throws IOException {
+		for (CoordinatorLog.Entry entry : log.getPending().values()) {
+			if (entry.isCommitted()) {
+				shards.get(entry.getDebitShard()).commit(entry.getTransaction());
+				shards.get(entry.getCreditShard()).commit(entry.getTransaction());
+				log.end(entry.getTransaction());
+			} else {
+				log.abort(entry.getTransaction());
+				abort(entry.getTransaction(), entry.getDebitShard(), entry.getCreditShard());
+			}
+		}
+
+		// Shards may also hold prepared transactions whose BEGIN record never made it to disk
+		for (ShardConnection shard : shards) {
+			for (long transaction : shard.inDoubt()) {
+				if ((transaction >>> SEQUENCE_BITS) == coordinatorId && !log.getPending().containsKey(transaction))
+					shard.abort(transaction);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+}
@@ -0,0 +1,123 @@
+package perez.ruben.bank.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+
+// File with one fixed-size slot per account id, used by the TieredAccountStore to keep the accounts paged out
+//
+// The slot of account i starts at i * SLOT_SIZE, so no index is needed (ids with no account are holes in a
+// sparse file). A slot holds the type (0 if empty), id, currency, balance, overdraft or interest rate, and owner.
+// Striped accounts have a type of their own and are read back with the default number of stripes.
+class AccountFile implements Closeable {
+
+	static final int SLOT_SIZE = 128;
+	private static final int OWNER_OFFSET = 31;
+	static final int MAX_OWNER_BYTES = SLOT_SIZE - OWNER_OFFSET;
+
+	private final FileChannel channel;
+
+	AccountFile(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	// Whether the account can be kept in a slot (the state that is not stored, like holds, must be empty)
+	static boolean fits(Account account) {
+		if (account.getHeld() != 0 || account.getVelocityLimit() != null)
+			return false;
+		// No char takes more than 3 bytes, so most names need no encoding to be checked
+		String owner = account.getOwner();
+		return owner.length() * 3 <= MAX_OWNER_BYTES || owner.getBytes(StandardCharsets.UTF_8).length <= MAX_OWNER_BYTES;
+	}
+
+	void write(Account account) throws IOException {
+		byte[] owner = account.getOwner().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+		double limit = 0;
+		if (account instanceof StripedAccount) {
+			slot.put((byte) 'T');
+			limit = ((CheckingAccount) account).getOverdraft();
+		} else if (account instanceof CheckingAccount) {
+			slot.put((byte) 'C');
+			limit = ((CheckingAccount) account).getOverdraft();
+		} else if (account instanceof SavingsAccount) {
+			slot.put((byte) 'S');
+			limit = ((SavingsAccount) account).getInterestRate();
+		} else
+			slot.put((byte) 'A');
+		slot.putLong(account.getId()).putInt(account.getCurrencyId()).putDouble(account.getBalance()).putDouble(limit)
+				.putShort((short) owner.length).put(owner);
+		slot.clear();
+		write(slot, account.getId());
+	}
+
+	// Returns null if there is no account with the id
+	Account read(long id) throws IOException {
+		ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+		long position = id * SLOT_SIZE;
+		while (slot.hasRemaining()) {
+			int n = channel.read(slot, position + slot.position());
+			if (n < 0)
+				return null;
+		}
+		slot.flip();
+
+		byte type = slot.get();
+		if (type == 0)
+			return null;
+		if (slot.getLong() != id)
+			throw new IOException("The slot of account " + id + " is corrupt");
+		int currency = slot.getInt();
+		double balance = slot.getDouble();
+		double limit = slot.getDouble();
+		byte[] owner = new byte[slot.getShort()];
+		slot.get(owner);
+
+		Account account;
+		if (type == 'T')
+			account = new StripedAccount(id, new String(owner, StandardCharsets.UTF_8), limit);
+		else if (type == 'C')
+			account = new CheckingAccount(id, new String(owner, StandardCharsets.UTF_8), limit);
+		else if (type == 'S')
+			account = new SavingsAccount(id, new String(owner, StandardCharsets.UTF_8), limit);
+		else
+			account = new Account(id, new String(owner, StandardCharsets.UTF_8));
+		account.setCurrency(CurrencyRegistry.getDefault().codeOf(currency));
+		try {
+			account.deposit(balance);
+			if (account instanceof StripedAccount)
+				((StripedAccount) account).consolidate();
+		} catch (OverdraftException e) {
+			// Only balances the account allowed are written
+			throw new IOException("The balance of account " + id + " is not allowed by the account", e);
+		}
+		return account;
+	}
+
+	boolean contains(long id) throws IOException {
+		ByteBuffer type = ByteBuffer.allocate(1);
+		return channel.read(type, id * SLOT_SIZE) == 1 && type.get(0) != 0;
+	}
+
+	private void write(ByteBuffer slot, long id) throws IOException {
+		long position = id * SLOT_SIZE;
+		while (slot.hasRemaining())
+			channel.write(slot, position + slot.position());
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
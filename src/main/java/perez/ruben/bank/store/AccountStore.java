@@ -0,0 +1,151 @@
+package perez.ruben.bank.store;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.AccountListener;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+
+// Keeps the accounts held by an engine instance, indexed by their id
+//
+// The store becomes the listener of the accounts added to it, and forwards their changes to its own listeners.
+public class AccountStore {
+
+	private final ConcurrentHashMap<Long, Account> accounts;
+	private final CopyOnWriteArrayList<StoreListener> listeners = new CopyOnWriteArrayList<>();
+
+	private final AccountListener dispatcher = new AccountListener() {
+		@Override
+		public void balanceChanged(Account account, double amount, Account counterpart) {
+			for (StoreListener l : listeners)
+				l.balanceChanged(account, amount, counterpart);
+		}
+
+		@Override
+		public void ownerChanged(Account account, String oldOwner, String newOwner) {
+			for (StoreListener l : listeners)
+				l.ownerChanged(account, oldOwner, newOwner);
+		}
+
+		@Override
+		public void overdraftChanged(CheckingAccount account, double overdraft) {
+			for (StoreListener l : listeners)
+				l.overdraftChanged(account, overdraft);
+		}
+
+		@Override
+		public void interestRateChanged(SavingsAccount account, double interestRate) {
+			for (StoreListener l : listeners)
+				l.interestRateChanged(account, interestRate);
+		}
+
+		@Override
+		public void currencyChanged(Account account, String currency) {
+			for (StoreListener l : listeners)
+				l.currencyChanged(account, currency);
+		}
+
+		@Override
+		public void heldChanged(Account account, double held) {
+			for (StoreListener l : listeners)
+				l.heldChanged(account, held);
+		}
+	};
+
+	public AccountStore() {
+		accounts = new ConcurrentHashMap<>();
+	}
+
+	public AccountStore(int expectedSize) {
+		accounts = new ConcurrentHashMap<>(expectedSize);
+	}
+
+	public void addListener(StoreListener listener) {
+		listeners.add(Objects.requireNonNull(listener));
+	}
+
+	public void removeListener(StoreListener listener) {
+		listeners.remove(listener);
+	}
+
+	// Accounts should be added before they are shared with other threads, so listeners see all their changes
+	public void add(Account account) {
+		Objects.requireNonNull(account, "The account may not be null");
+		if (accounts.putIfAbsent(account.getId(), account) != null)
+			throw new IllegalArgumentException("An account with id " + account.getId() + " already exists");
+
+		account.setListener(dispatcher);
+		try {
+			for (StoreListener l : listeners)
+				l.accountAdded(account);
+		} catch (RuntimeException e) {
+			// A listener that can not take the account (e.g. an id out of its range) rejects it
+			remove(account);
+			throw e;
+		}
+	}
+
+	public Account get(long id) {
+		return accounts.get(id);
+	}
+
+	// Same as #get, but fails if the account does not exist or is not of the expected type
+	public <T extends Account> T get(long id, Class<T> type) {
+		Account account = accounts.get(id);
+		if (account == null)
+			throw new IllegalArgumentException("There is no account with id " + id);
+		if (!type.isInstance(account))
+			throw new IllegalArgumentException("The account with id " + id + " is not a " + type.getSimpleName());
+		return type.cast(account);
+	}
+
+	public boolean remove(Account account) {
+		if (!accounts.remove(account.getId(), account))
+			return false;
+
+		account.setListener(null);
+		for (StoreListener l : listeners)
+			l.accountRemoved(account);
+		return true;
+	}
+
+	public int size() {
+		return accounts.size();
+	}
+
+	public Collection<Account> accounts() {
+		return Collections.unmodifiableCollection(accounts.values());
+	}
+
+	// Splits over the buckets of the map, so scans never block writers nor copy the accounts
+	// Weakly consistent: accounts added or removed during a scan may or may not be seen, the others are seen once
+	public Spliterator<Account> spliterator() {
+		return accounts.values().spliterator();
+	}
+
+	public Stream<Account> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	public Stream<Account> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	// The accounts of the given type (subclasses included), scanned in parallel
+	public <T extends Account> Stream<T> parallelStream(Class<T> type) {
+		return parallelStream().filter(type::isInstance).map(type::cast);
+	}
+
+	@Override
+	public String toString() {
+		return "AccountStore [size=" + accounts.size() + "]";
+	}
+}
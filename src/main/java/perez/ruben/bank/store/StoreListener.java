@@ -0,0 +1,14 @@
+package perez.ruben.bank.store;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.AccountListener;
+
+// Notified of the accounts added to or removed from an AccountStore, and of every change committed to them
+public interface StoreListener extends AccountListener {
+
+	default void accountAdded(Account account) {
+	}
+
+	default void accountRemoved(Account account) {
+	}
+}
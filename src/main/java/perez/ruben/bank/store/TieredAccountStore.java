@@ -0,0 +1,226 @@
+package perez.ruben.bank.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Keeps at most "capacity" accounts in memory and pages the others out to an AccountFile
+//
+// Resident accounts sit in a fixed array of frames, found by id through a map. When a frame is needed, a CLOCK hand sweeps
+// the frames: frames used since the last sweep get a second chance, and the first one that was not is written
+// to the file and reused. Accounts are loaded back on their next operation.
+//
+// Operations on an account hold the lock of its stripe, so it can not be paged out meanwhile. Eviction only
+// tries those locks, and skips the accounts that are busy, that hold state the file does not keep (holds and
+// velocity limits) or whose owner's name is too long for a slot: those stay in memory.
+//
+// Accounts belong to the store once added, so they must only be used through it afterwards. The store does
+// not notify listeners.
+public class TieredAccountStore implements Closeable {
+
+	// Must be a power of two
+	private static final int STRIPES = 1024;
+
+	private final AccountFile file;
+	private final int capacity;
+	private final ConcurrentHashMap<Long, Integer> frames;
+	private final AtomicReferenceArray<Account> resident;
+	private final AtomicIntegerArray referenced;
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+	// Guards the hand and the number of frames in use
+	private final ReentrantLock clock = new ReentrantLock();
+	private int hand;
+	private int used;
+
+	public TieredAccountStore(Path path, int capacity) throws IOException {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity must be positive");
+
+		file = new AccountFile(path);
+		this.capacity = capacity;
+		frames = new ConcurrentHashMap<>(capacity);
+		resident = new AtomicReferenceArray<>(capacity);
+		referenced = new AtomicIntegerArray(capacity);
+		for (int i = 0; i < STRIPES; i++)
+			stripes[i] = new ReentrantLock();
+	}
+
+	private static int stripeOf(long id) {
+		return Long.hashCode(id) * 0x9E3779B9 >>> (32 - Integer.numberOfTrailingZeros(STRIPES));
+	}
+
+	private ReentrantLock stripe(long id) {
+		return stripes[stripeOf(id)];
+	}
+
+	public void add(Account account) throws IOException {
+		long id = account.getId();
+		ReentrantLock lock = stripe(id);
+		lock.lock();
+		try {
+			if (frames.containsKey(id) || file.contains(id))
+				throw new IllegalArgumentException("An account with id " + id + " already exists");
+			place(account);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double getBalance(long id) throws IOException {
+		// Without locking if the account is resident: the frame still holding it after the read means it was
+		// not paged out (and loaded again, and changed) meanwhile
+		Integer frame = frames.get(id);
+		if (frame != null) {
+			Account account = resident.get(frame);
+			if (account != null && account.getId() == id) {
+				double balance = account.getBalance();
+				if (resident.get(frame) == account) {
+					touch(frame);
+					return balance;
+				}
+			}
+		}
+
+		ReentrantLock lock = stripe(id);
+		lock.lock();
+		try {
+			return load(id).getBalance();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void deposit(long id, double amount) throws OverdraftException, IOException {
+		ReentrantLock lock = stripe(id);
+		lock.lock();
+		try {
+			load(id).deposit(amount);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void transfer(long from, long to, double amount) throws OverdraftException, IOException {
+		// Stripes are always taken in the same order, so concurrent transfers can not deadlock
+		ReentrantLock first = stripes[Math.min(stripeOf(from), stripeOf(to))];
+		ReentrantLock second = stripes[Math.max(stripeOf(from), stripeOf(to))];
+		first.lock();
+		second.lock();
+		try {
+			CheckingAccount payer = as(load(from), from);
+			CheckingAccount payee = as(load(to), to);
+			payer.transfer(amount, payee);
+		} finally {
+			second.unlock();
+			first.unlock();
+		}
+	}
+
+	private static CheckingAccount as(Account account, long id) {
+		if (!(account instanceof CheckingAccount))
+			throw new IllegalArgumentException("The account with id " + id + " is not a CheckingAccount");
+		return (CheckingAccount) account;
+	}
+
+	public boolean isResident(long id) {
+		return frames.containsKey(id);
+	}
+
+	public int getResidentCount() {
+		return frames.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// Must be called with the stripe of the id held
+	private Account load(long id) throws IOException {
+		Integer frame = frames.get(id);
+		if (frame != null) {
+			touch(frame);
+			return resident.get(frame);
+		}
+
+		Account account = file.read(id);
+		if (account == null)
+			throw new IllegalArgumentException("There is no account with id " + id);
+		place(account);
+		return account;
+	}
+
+	private void place(Account account) throws IOException {
+		int frame = allocate();
+		resident.set(frame, account);
+		referenced.set(frame, 1);
+		frames.put(account.getId(), frame);
+	}
+
+	private void touch(int frame) {
+		// Only written when it changes, so hot accounts do not keep writing the same cache line
+		if (referenced.get(frame) == 0)
+			referenced.set(frame, 1);
+	}
+
+	private int allocate() throws IOException {
+		clock.lock();
+		try {
+			if (used < capacity)
+				return used++;
+
+			// Two sweeps clear every reference bit, so a third one without a victim means nothing can be evicted
+			for (int step = 0; step < 3 * capacity; step++) {
+				int frame = hand;
+				hand = (hand + 1) % capacity;
+				if (referenced.get(frame) == 1) {
+					referenced.set(frame, 0);
+					continue;
+				}
+				if (evict(frame))
+					return frame;
+			}
+			throw new IllegalStateException("All the " + capacity + " resident accounts are in use or pinned");
+		} finally {
+			clock.unlock();
+		}
+	}
+
+	private boolean evict(int frame) throws IOException {
+		Account victim = resident.get(frame);
+		if (victim == null)
+			return false;
+
+		ReentrantLock lock = stripe(victim.getId());
+		// The thread may hold the stripe for an account it is using, which must stay resident
+		if (lock.isHeldByCurrentThread() || !lock.tryLock())
+			return false;
+		try {
+			if (!AccountFile.fits(victim))
+				return false;
+			file.write(victim);
+			frames.remove(victim.getId());
+			resident.set(frame, null);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	@Override
+	public String toString() {
+		return "TieredAccountStore [capacity=" + capacity + ", resident=" + frames.size() + "]";
+	}
+}
@@ -0,0 +1,47 @@
+package perez.ruben.bank.stress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of checking a history: violations mean a bug, warnings mean something could not be checked
+public class CheckResult {
+
+	private final String checker;
+	private final List<String> violations = new ArrayList<>();
+	private final List<String> warnings = new ArrayList<>();
+
+	CheckResult(String checker) {
+		this.checker = checker;
+	}
+
+	void violation(String message) {
+		violations.add(message);
+	}
+
+	void warning(String message) {
+		warnings.add(message);
+	}
+
+	public boolean isOk() {
+		return violations.isEmpty();
+	}
+
+	public List<String> getViolations() {
+		return Collections.unmodifiableList(violations);
+	}
+
+	public List<String> getWarnings() {
+		return Collections.unmodifiableList(warnings);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(checker).append(isOk() ? ": OK" : ": FAILED");
+		for (String v : violations)
+			sb.append("\n\tviolation: ").append(v);
+		for (String w : warnings)
+			sb.append("\n\twarning: ").append(w);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,39 @@
+package perez.ruben.bank.stress;
+
+// Checks that no money was created or lost, and that every account ended within its limits
+//
+// The money in the accounts at the end must be the money at the start plus every successful deposit and
+// withdrawal (transfers only move money around). Interest payments create money in amounts the history does
+// not record, so histories with them only get the limits checked.
+public class ConservationChecker {
+
+	public CheckResult check(History history) {
+		CheckResult result = new CheckResult("Conservation of money");
+
+		boolean interest = false;
+		double expected = 0;
+		for (int i = 0; i < history.getAccountCount(); i++)
+			expected += history.getInitialBalance(i);
+		for (Operation op : history.getOperations()) {
+			if (op.getType() == OperationType.DEPOSIT && op.isSucceeded())
+				expected += op.getAmount();
+			else if (op.getType() == OperationType.PAY_INTEREST)
+				interest = true;
+		}
+
+		double actual = 0;
+		for (int i = 0; i < history.getAccountCount(); i++) {
+			actual += history.getFinalBalance(i);
+			if (history.getFinalBalance(i) < history.getFinalOverdraft(i))
+				result.violation("Account " + i + " ended with a balance of " + history.getFinalBalance(i)
+						+ ", below its limit of " + history.getFinalOverdraft(i));
+		}
+
+		if (interest)
+			result.warning("The total was not checked because the history has interest payments");
+		else if (actual != expected)
+			result.violation("The accounts hold " + actual + " but should hold " + expected + " (difference " + (actual - expected) + ")");
+
+		return result;
+	}
+}
@@ -0,0 +1,105 @@
+package perez.ruben.bank.stress;
+
+import java.util.Collections;
+import java.util.List;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+
+// Everything that happened during a stress run: the state of the accounts before and after it, and every operation
+public class History {
+
+	public enum Kind {
+		ACCOUNT, SAVINGS, CHECKING;
+
+		static Kind of(Account account) {
+			if (account instanceof CheckingAccount)
+				return CHECKING;
+			if (account instanceof SavingsAccount)
+				return SAVINGS;
+			return ACCOUNT;
+		}
+	}
+
+	private final Kind[] kinds;
+	private final double[] initialBalances;
+	private final double[] initialOverdrafts;
+	private final double[] interestRates;
+	private final double[] finalBalances;
+	private final double[] finalOverdrafts;
+	private final List<Operation> operations;
+	private final long start;
+	private final long end;
+
+	History(Account[] accounts, double[] initialBalances, double[] initialOverdrafts, List<Operation> operations, long start, long end) {
+		int n = accounts.length;
+		kinds = new Kind[n];
+		interestRates = new double[n];
+		finalBalances = new double[n];
+		finalOverdrafts = new double[n];
+		for (int i = 0; i < n; i++) {
+			kinds[i] = Kind.of(accounts[i]);
+			finalBalances[i] = accounts[i].getBalance();
+			finalOverdrafts[i] = overdraftOf(accounts[i]);
+			if (accounts[i] instanceof SavingsAccount)
+				interestRates[i] = ((SavingsAccount) accounts[i]).getInterestRate();
+		}
+		this.initialBalances = initialBalances;
+		this.initialOverdrafts = initialOverdrafts;
+		this.operations = Collections.unmodifiableList(operations);
+		this.start = start;
+		this.end = end;
+	}
+
+	static double overdraftOf(Account account) {
+		return account instanceof CheckingAccount ? ((CheckingAccount) account).getOverdraft() : 0;
+	}
+
+	public int getAccountCount() {
+		return kinds.length;
+	}
+
+	public Kind getKind(int account) {
+		return kinds[account];
+	}
+
+	public double getInitialBalance(int account) {
+		return initialBalances[account];
+	}
+
+	// Overdraft limit of checking accounts, 0 for the others
+	public double getInitialOverdraft(int account) {
+		return initialOverdrafts[account];
+	}
+
+	public double getInterestRate(int account) {
+		return interestRates[account];
+	}
+
+	public double getFinalBalance(int account) {
+		return finalBalances[account];
+	}
+
+	public double getFinalOverdraft(int account) {
+		return finalOverdrafts[account];
+	}
+
+	// Operations of all threads, in the order they were invoked by every thread (threads one after the other)
+	public List<Operation> getOperations() {
+		return operations;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	@Override
+	public String toString() {
+		return "History [accounts=" + kinds.length + ", operations=" + operations.size() + "]";
+	}
+}
@@ -0,0 +1,277 @@
+package perez.ruben.bank.stress;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Checks that the history of every account is linearizable against a sequential model of the account
+//
+// Linearizability is local, so every account is checked on its own. Transfers are not atomic across both
+// accounts (see the README), so they are checked as two postings: the withdrawal from the paying account,
+// which may fail, and the deposit into the other one, which happens only if the withdrawal succeeded.
+// After the run, every account must also hold the state of the last step of its linearization.
+//
+// The search is the one by Wing & Gong with the memoization by Lowe: operations are tried in every order that
+// respects real time, remembering the (linearized operations, state) pairs already explored. Pairs are
+// remembered by a 64-bit fingerprint (the set of operations is hashed incrementally, Zobrist style), which keeps
+// the memory needed small enough for long histories; a collision could only hide a valid order.
+public class LinearizabilityChecker {
+
+	private static final byte POSTING = 0;
+	private static final byte SET_OVERDRAFT = 1;
+	private static final byte INTEREST = 2;
+	private static final byte READ = 3;
+	private static final byte FINAL = 4;
+
+	private final int maxStates;
+
+	public LinearizabilityChecker() {
+		this(1 << 22);
+	}
+
+	// Accounts whose search needs more than "maxStates" states are reported as warnings instead of being checked
+	public LinearizabilityChecker(int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	private static final class Call {
+		final byte kind;
+		final double amount;
+		final boolean succeeded;
+		final Operation operation;
+		// Random key of the call in the fingerprint of the set of linearized calls
+		final long key;
+
+		Call(byte kind, double amount, boolean succeeded, Operation operation, long key) {
+			this.kind = kind;
+			this.amount = amount;
+			this.succeeded = succeeded;
+			this.operation = operation;
+			this.key = key;
+		}
+	}
+
+	private static final class Entry {
+		final Call call;
+		final long time;
+		final boolean isReturn;
+		Entry match;
+		Entry prev;
+		Entry next;
+
+		Entry(Call call, long time, boolean isReturn) {
+			this.call = call;
+			this.time = time;
+			this.isReturn = isReturn;
+		}
+	}
+
+	// Set of fingerprints with open addressing (0 is used as the empty slot, so it is never stored)
+	private static final class FingerprintSet {
+		private long[] slots = new long[1 << 16];
+		private int size;
+
+		boolean add(long fingerprint) {
+			if (fingerprint == 0)
+				fingerprint = 1;
+			if (size * 2 >= slots.length)
+				grow();
+			int mask = slots.length - 1;
+			int i = (int) mix(fingerprint) & mask;
+			while (slots[i] != 0) {
+				if (slots[i] == fingerprint)
+					return false;
+				i = (i + 1) & mask;
+			}
+			slots[i] = fingerprint;
+			size++;
+			return true;
+		}
+
+		private void grow() {
+			long[] old = slots;
+			slots = new long[old.length * 2];
+			size = 0;
+			for (long f : old)
+				if (f != 0)
+					add(f);
+		}
+
+		int size() {
+			return size;
+		}
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+
+	private final SplittableRandom keys = new SplittableRandom(0x5eed);
+
+	public CheckResult check(History history) {
+		CheckResult result = new CheckResult("Linearizability");
+
+		List<List<Entry>> entries = new ArrayList<>();
+		for (int i = 0; i < history.getAccountCount(); i++)
+			entries.add(new ArrayList<>());
+
+		for (Operation op : history.getOperations()) {
+			switch (op.getType()) {
+			case DEPOSIT:
+				add(entries.get(op.getAccount()), POSTING, op.getAmount(), op.isSucceeded(), op);
+				break;
+			case TRANSFER:
+				int payer = op.getAmount() >= 0 ? op.getAccount() : op.getOther();
+				int payee = op.getAmount() >= 0 ? op.getOther() : op.getAccount();
+				double value = Math.abs(op.getAmount());
+				add(entries.get(payer), POSTING, -value, op.isSucceeded(), op);
+				if (op.isSucceeded())
+					add(entries.get(payee), POSTING, value, true, op);
+				break;
+			case SET_OVERDRAFT:
+				add(entries.get(op.getAccount()), SET_OVERDRAFT, op.getAmount(), op.isSucceeded(), op);
+				break;
+			case PAY_INTEREST:
+				add(entries.get(op.getAccount()), INTEREST, 0, op.isSucceeded(), op);
+				break;
+			case READ:
+				add(entries.get(op.getAccount()), READ, op.getObserved(), true, op);
+				break;
+			}
+		}
+
+		for (int i = 0; i < history.getAccountCount(); i++) {
+			List<Entry> account = entries.get(i);
+			// The final state is observed after everything else
+			Call last = new Call(FINAL, history.getFinalBalance(i), true, null, keys.nextLong());
+			account.add(new Entry(last, history.getEnd() + 1, false));
+			account.add(new Entry(last, history.getEnd() + 2, true));
+			account.get(account.size() - 2).match = account.get(account.size() - 1);
+			account.get(account.size() - 1).match = account.get(account.size() - 2);
+
+			check(i, account, history, result);
+		}
+
+		return result;
+	}
+
+	private void add(List<Entry> entries, byte kind, double amount, boolean succeeded, Operation op) {
+		Call call = new Call(kind, amount, succeeded, op, keys.nextLong());
+		Entry invocation = new Entry(call, op.getInvoked(), false);
+		Entry response = new Entry(call, op.getCompleted(), true);
+		invocation.match = response;
+		response.match = invocation;
+		entries.add(invocation);
+		entries.add(response);
+	}
+
+	private void check(int account, List<Entry> entries, History history, CheckResult result) {
+		// Invocations go before responses with the same time, so that they are taken as concurrent
+		entries.sort((a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Boolean.compare(a.isReturn, b.isReturn));
+
+		Entry head = new Entry(null, Long.MIN_VALUE, false);
+		Entry previous = head;
+		for (Entry e : entries) {
+			previous.next = e;
+			e.prev = previous;
+			previous = e;
+		}
+
+		double rate = history.getInterestRate(account);
+		double finalOverdraft = history.getFinalOverdraft(account);
+		double balance = history.getInitialBalance(account);
+		double overdraft = history.getInitialOverdraft(account);
+		long linearized = 0;
+		FingerprintSet explored = new FingerprintSet();
+		Deque<Object[]> stack = new ArrayDeque<>();
+		Entry entry = head.next;
+
+		while (head.next != null) {
+			if (explored.size() > maxStates) {
+				result.warning("Account " + account + " was not checked: its search needs more than " + maxStates + " states");
+				return;
+			}
+
+			if (!entry.isReturn) {
+				double[] next = step(entry.call, balance, overdraft, rate, finalOverdraft);
+				if (next != null) {
+					long candidate = linearized ^ entry.call.key;
+					if (explored.add(candidate ^ mix(Double.doubleToLongBits(next[0])) ^ mix(~Double.doubleToLongBits(next[1])))) {
+						stack.push(new Object[] { entry, balance, overdraft });
+						balance = next[0];
+						overdraft = next[1];
+						linearized = candidate;
+						lift(entry);
+						entry = head.next;
+						continue;
+					}
+				}
+				entry = entry.next;
+			} else {
+				if (stack.isEmpty()) {
+					// Nothing can be linearized before this call returned
+					Operation op = entry.call.operation;
+					result.violation("Account " + account + " is not linearizable: no valid order for "
+							+ (op == null ? "its final balance of " + history.getFinalBalance(account) : op.toString()));
+					return;
+				}
+				Object[] frame = stack.pop();
+				entry = (Entry) frame[0];
+				balance = (Double) frame[1];
+				overdraft = (Double) frame[2];
+				linearized ^= entry.call.key;
+				unlift(entry);
+				entry = entry.next;
+			}
+		}
+	}
+
+	// The state after the call, or null if the call can not have returned what it did from this state
+	private static double[] step(Call call, double balance, double overdraft, double rate, double finalOverdraft) {
+		switch (call.kind) {
+		case POSTING:
+		case INTEREST: {
+			double amount = call.kind == INTEREST ? balance * rate : call.amount;
+			double newBalance = balance + amount;
+			boolean allowed = newBalance >= overdraft;
+			if (allowed != call.succeeded)
+				return null;
+			return new double[] { allowed ? newBalance : balance, overdraft };
+		}
+		case SET_OVERDRAFT: {
+			boolean allowed = call.amount < balance;
+			if (allowed != call.succeeded)
+				return null;
+			return new double[] { balance, allowed ? call.amount : overdraft };
+		}
+		case READ:
+			return call.amount == balance ? new double[] { balance, overdraft } : null;
+		default:
+			return call.amount == balance && finalOverdraft == overdraft ? new double[] { balance, overdraft } : null;
+		}
+	}
+
+	private static void lift(Entry entry) {
+		entry.prev.next = entry.next;
+		if (entry.next != null)
+			entry.next.prev = entry.prev;
+		Entry match = entry.match;
+		match.prev.next = match.next;
+		if (match.next != null)
+			match.next.prev = match.prev;
+	}
+
+	private static void unlift(Entry entry) {
+		Entry match = entry.match;
+		match.prev.next = match;
+		if (match.next != null)
+			match.next.prev = match;
+		entry.prev.next = entry;
+		if (entry.next != null)
+			entry.next.prev = entry;
+	}
+}
@@ -0,0 +1,75 @@
+package perez.ruben.bank.stress;
+
+// One operation of a stress history: what was called, when it was invoked and completed, and what it returned
+public final class Operation {
+
+	private final int thread;
+	private final OperationType type;
+	private final int account;
+	private final int other;
+	private final double amount;
+	long invoked;
+	long completed;
+	boolean succeeded;
+	double observed;
+
+	Operation(int thread, OperationType type, int account, int other, double amount) {
+		this.thread = thread;
+		this.type = type;
+		this.account = account;
+		this.other = other;
+		this.amount = amount;
+	}
+
+	public int getThread() {
+		return thread;
+	}
+
+	public OperationType getType() {
+		return type;
+	}
+
+	// Index of the account in the array given to the StressRunner
+	public int getAccount() {
+		return account;
+	}
+
+	// Index of the destination account of a transfer (-1 for other operations)
+	public int getOther() {
+		return other;
+	}
+
+	// Amount of a deposit or transfer, or new limit of a SET_OVERDRAFT
+	public double getAmount() {
+		return amount;
+	}
+
+	public long getInvoked() {
+		return invoked;
+	}
+
+	public long getCompleted() {
+		return completed;
+	}
+
+	public long getLatency() {
+		return completed - invoked;
+	}
+
+	// False if the operation was rejected with an OverdraftException
+	public boolean isSucceeded() {
+		return succeeded;
+	}
+
+	// Balance returned by a READ
+	public double getObserved() {
+		return observed;
+	}
+
+	@Override
+	public String toString() {
+		return "Operation [thread=" + thread + ", type=" + type + ", account=" + account + (other >= 0 ? ", other=" + other : "")
+				+ ", amount=" + amount + ", invoked=" + invoked + ", completed=" + completed + ", succeeded=" + succeeded
+				+ (type == OperationType.READ ? ", observed=" + observed : "") + "]";
+	}
+}
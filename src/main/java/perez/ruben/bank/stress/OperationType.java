@@ -0,0 +1,14 @@
+package perez.ruben.bank.stress;
+
+public enum OperationType {
+	// Deposit (positive amount) or withdrawal (negative amount) on any kind of account
+	DEPOSIT,
+	// CheckingAccount#transfer between two different checking accounts
+	TRANSFER,
+	// CheckingAccount#setOverdraft
+	SET_OVERDRAFT,
+	// SavingsAccount#payInterest
+	PAY_INTEREST,
+	// Account#getBalance
+	READ
+}
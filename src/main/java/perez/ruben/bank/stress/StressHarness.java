@@ -0,0 +1,71 @@
+package perez.ruben.bank.stress;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Runs the standard stress scenarios and prints their reports: java perez.ruben.bank.stress.StressHarness [threads] [operations per thread]
+//
+// Exits with status 1 if any history is not linearizable or does not conserve money.
+public class StressHarness {
+
+	public static boolean run(String name, WorkloadConfig config, Account... accounts) throws InterruptedException {
+		History history = new StressRunner(config).run(accounts);
+		CheckResult linearizability = new LinearizabilityChecker().check(history);
+		CheckResult conservation = new ConservationChecker().check(history);
+
+		System.out.println("== " + name + " ==");
+		System.out.println(config);
+		System.out.print(new StressReport(history));
+		System.out.println(linearizability);
+		System.out.println(conservation);
+		System.out.println();
+
+		return linearizability.isOk() && conservation.isOk();
+	}
+
+	public static CheckingAccount[] checkingAccounts(int n, double balance, double overdraft) throws OverdraftException {
+		CheckingAccount[] accounts = new CheckingAccount[n];
+		for (int i = 0; i < n; i++) {
+			accounts[i] = new CheckingAccount("Stress Owner " + i, overdraft);
+			accounts[i].deposit(balance);
+		}
+		return accounts;
+	}
+
+	public static SavingsAccount[] savingsAccounts(int n, double balance, double interestRate) throws OverdraftException {
+		SavingsAccount[] accounts = new SavingsAccount[n];
+		for (int i = 0; i < n; i++) {
+			accounts[i] = new SavingsAccount("Stress Owner " + i, interestRate);
+			accounts[i].deposit(balance);
+		}
+		return accounts;
+	}
+
+	public static void main(String[] args) throws InterruptedException, OverdraftException {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		boolean ok = true;
+
+		ok &= run("Checking accounts", new WorkloadConfig()
+				.setThreads(threads)
+				.setOperationsPerThread(operations)
+				.setSkew(1.0)
+				.setWeight(OperationType.DEPOSIT, 30)
+				.setWeight(OperationType.TRANSFER, 40)
+				.setWeight(OperationType.SET_OVERDRAFT, 10)
+				.setWeight(OperationType.READ, 20),
+				checkingAccounts(16, 500, -500));
+
+		ok &= run("Savings accounts", new WorkloadConfig()
+				.setThreads(threads)
+				.setOperationsPerThread(operations / 10)
+				.setWeight(OperationType.DEPOSIT, 80)
+				.setWeight(OperationType.PAY_INTEREST, 5)
+				.setWeight(OperationType.READ, 15),
+				savingsAccounts(16, 1000, 0.0078125));
+
+		System.exit(ok ? 0 : 1);
+	}
+}
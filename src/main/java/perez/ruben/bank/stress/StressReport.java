@@ -0,0 +1,89 @@
+package perez.ruben.bank.stress;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of a stress run, and latency percentiles of every type of operation
+public class StressReport {
+
+	public static final class Latencies {
+		private final long[] sorted;
+
+		Latencies(long[] latencies) {
+			sorted = latencies.clone();
+			Arrays.sort(sorted);
+		}
+
+		public int getCount() {
+			return sorted.length;
+		}
+
+		// Latency in nanoseconds below which the given fraction of the operations completed (e.g. 0.99)
+		public long getPercentile(double fraction) {
+			if (sorted.length == 0)
+				return 0;
+			int i = (int) Math.ceil(fraction * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+		}
+
+		public long getMax() {
+			return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+		}
+	}
+
+	private final long operations;
+	private final long elapsedNanos;
+	private final Map<OperationType, Latencies> latencies = new EnumMap<>(OperationType.class);
+
+	public StressReport(History history) {
+		operations = history.getOperations().size();
+		elapsedNanos = history.getEnd() - history.getStart();
+
+		Map<OperationType, long[]> byType = new EnumMap<>(OperationType.class);
+		Map<OperationType, Integer> counts = new EnumMap<>(OperationType.class);
+		for (Operation op : history.getOperations())
+			counts.merge(op.getType(), 1, Integer::sum);
+		for (Map.Entry<OperationType, Integer> e : counts.entrySet())
+			byType.put(e.getKey(), new long[e.getValue()]);
+
+		Map<OperationType, Integer> filled = new EnumMap<>(OperationType.class);
+		for (Operation op : history.getOperations()) {
+			int i = filled.getOrDefault(op.getType(), 0);
+			byType.get(op.getType())[i] = op.getLatency();
+			filled.put(op.getType(), i + 1);
+		}
+		for (Map.Entry<OperationType, long[]> e : byType.entrySet())
+			latencies.put(e.getKey(), new Latencies(e.getValue()));
+	}
+
+	public long getOperations() {
+		return operations;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : operations * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	public Latencies getLatencies(OperationType type) {
+		return latencies.get(type);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d operations in %.1f ms: %.0f ops/s%n", operations, elapsedNanos / 1e6, getThroughput()));
+		sb.append(String.format("%-14s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 (us)", "p99 (us)", "p99.9 (us)", "max (us)"));
+		for (Map.Entry<OperationType, Latencies> e : latencies.entrySet()) {
+			Latencies l = e.getValue();
+			sb.append(String.format("%-14s %10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), l.getCount(),
+					l.getPercentile(0.5) / 1e3, l.getPercentile(0.99) / 1e3, l.getPercentile(0.999) / 1e3, l.getMax() / 1e3));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,116 @@
+package perez.ruben.bank.stress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+// Runs a workload against a set of accounts from several threads, recording every operation
+//
+// Operations are generated before the threads start, and every thread keeps its own history, so the only
+// contention during the run is the one of the accounts themselves.
+public class StressRunner {
+
+	private final WorkloadConfig config;
+
+	public StressRunner(WorkloadConfig config) {
+		this.config = config;
+	}
+
+	public History run(Account... accounts) throws InterruptedException {
+		validate(accounts);
+
+		double[] initialBalances = new double[accounts.length];
+		double[] initialOverdrafts = new double[accounts.length];
+		for (int i = 0; i < accounts.length; i++) {
+			initialBalances[i] = accounts[i].getBalance();
+			initialOverdrafts[i] = History.overdraftOf(accounts[i]);
+		}
+
+		List<List<Operation>> perThread = new ArrayList<>();
+		for (int t = 0; t < config.getThreads(); t++) {
+			WorkloadGenerator generator = new WorkloadGenerator(config, t, accounts.length);
+			List<Operation> operations = new ArrayList<>(config.getOperationsPerThread());
+			for (int i = 0; i < config.getOperationsPerThread(); i++)
+				operations.add(generator.next());
+			perThread.add(operations);
+		}
+
+		CountDownLatch ready = new CountDownLatch(config.getThreads());
+		CountDownLatch go = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (List<Operation> operations : perThread) {
+			Thread thread = new Thread(() -> {
+				ready.countDown();
+				try {
+					go.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (Operation op : operations)
+					execute(op, accounts);
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		ready.await();
+		long start = System.nanoTime();
+		go.countDown();
+		for (Thread thread : threads)
+			thread.join();
+		long end = System.nanoTime();
+
+		List<Operation> all = new ArrayList<>(config.getThreads() * config.getOperationsPerThread());
+		for (List<Operation> operations : perThread)
+			all.addAll(operations);
+		return new History(accounts, initialBalances, initialOverdrafts, all, start, end);
+	}
+
+	private void validate(Account[] accounts) {
+		for (OperationType type : config.getMix().keySet()) {
+			if (config.getMix().get(type) == 0)
+				continue;
+			for (Account account : accounts) {
+				if ((type == OperationType.TRANSFER || type == OperationType.SET_OVERDRAFT) && !(account instanceof CheckingAccount))
+					throw new IllegalArgumentException(type + " needs every account to be a CheckingAccount");
+				if (type == OperationType.PAY_INTEREST && !(account instanceof SavingsAccount))
+					throw new IllegalArgumentException(type + " needs every account to be a SavingsAccount");
+			}
+			if (type == OperationType.TRANSFER && accounts.length < 2)
+				throw new IllegalArgumentException(type + " needs at least two accounts");
+		}
+	}
+
+	private static void execute(Operation op, Account[] accounts) {
+		Account account = accounts[op.getAccount()];
+		op.invoked = System.nanoTime();
+		try {
+			switch (op.getType()) {
+			case DEPOSIT:
+				account.deposit(op.getAmount());
+				break;
+			case TRANSFER:
+				((CheckingAccount) account).transfer(op.getAmount(), (CheckingAccount) accounts[op.getOther()]);
+				break;
+			case SET_OVERDRAFT:
+				((CheckingAccount) account).setOverdraft(op.getAmount());
+				break;
+			case PAY_INTEREST:
+				((SavingsAccount) account).payInterest();
+				break;
+			case READ:
+				op.observed = account.getBalance();
+				break;
+			}
+			op.succeeded = true;
+		} catch (OverdraftException e) {
+			op.succeeded = false;
+		}
+		op.completed = System.nanoTime();
+	}
+}
@@ -0,0 +1,102 @@
+package perez.ruben.bank.stress;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Parameters of a stress workload
+//
+// Amounts and overdraft limits are whole numbers, so every sum of them is exact and histories can be checked
+// without tolerances. Interest rates should be powers of two (0.5, 0.25...) for the same reason.
+public class WorkloadConfig {
+
+	private int threads = 4;
+	private int operationsPerThread = 10000;
+	private double skew = 0;
+	private int maxAmount = 100;
+	private int maxOverdraft = 1000;
+	private long seed = System.nanoTime();
+	private final Map<OperationType, Integer> mix = new EnumMap<>(OperationType.class);
+
+	public WorkloadConfig() {
+		mix.put(OperationType.DEPOSIT, 1);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public WorkloadConfig setThreads(int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("There must be at least one thread");
+		this.threads = threads;
+		return this;
+	}
+
+	public int getOperationsPerThread() {
+		return operationsPerThread;
+	}
+
+	public WorkloadConfig setOperationsPerThread(int operationsPerThread) {
+		this.operationsPerThread = operationsPerThread;
+		return this;
+	}
+
+	// Zipf exponent of the account popularity: 0 is uniform, around 1 a few accounts get most of the operations
+	public double getSkew() {
+		return skew;
+	}
+
+	public WorkloadConfig setSkew(double skew) {
+		if (skew < 0)
+			throw new IllegalArgumentException("The skew may not be negative");
+		this.skew = skew;
+		return this;
+	}
+
+	// Deposits, withdrawals and transfers move up to this amount
+	public int getMaxAmount() {
+		return maxAmount;
+	}
+
+	public WorkloadConfig setMaxAmount(int maxAmount) {
+		this.maxAmount = maxAmount;
+		return this;
+	}
+
+	// SET_OVERDRAFT picks limits between -maxOverdraft and 0
+	public int getMaxOverdraft() {
+		return maxOverdraft;
+	}
+
+	public WorkloadConfig setMaxOverdraft(int maxOverdraft) {
+		this.maxOverdraft = maxOverdraft;
+		return this;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public WorkloadConfig setSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	// Relative weight of every type of operation (types not given do not happen)
+	public Map<OperationType, Integer> getMix() {
+		return mix;
+	}
+
+	public WorkloadConfig setWeight(OperationType type, int weight) {
+		if (weight < 0)
+			throw new IllegalArgumentException("Weights may not be negative");
+		mix.put(type, weight);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkloadConfig [threads=" + threads + ", operationsPerThread=" + operationsPerThread + ", skew=" + skew
+				+ ", maxAmount=" + maxAmount + ", maxOverdraft=" + maxOverdraft + ", seed=" + seed + ", mix=" + mix + "]";
+	}
+}
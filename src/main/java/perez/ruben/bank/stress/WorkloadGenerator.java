@@ -0,0 +1,83 @@
+package perez.ruben.bank.stress;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+// Generates the operations of one thread of a workload
+public class WorkloadGenerator {
+
+	private final WorkloadConfig config;
+	private final int thread;
+	private final int nAccounts;
+	private final Random random;
+	// Cumulative distribution of the account popularity
+	private final double[] accountCdf;
+	private final OperationType[] types;
+	private final int[] cumulativeWeights;
+
+	public WorkloadGenerator(WorkloadConfig config, int thread, int nAccounts) {
+		if (nAccounts <= 0)
+			throw new IllegalArgumentException("There must be at least one account");
+
+		this.config = config;
+		this.thread = thread;
+		this.nAccounts = nAccounts;
+		random = new Random(config.getSeed() * 31 + thread);
+
+		accountCdf = new double[nAccounts];
+		double total = 0;
+		for (int k = 0; k < nAccounts; k++) {
+			total += 1 / Math.pow(k + 1, config.getSkew());
+			accountCdf[k] = total;
+		}
+		for (int k = 0; k < nAccounts; k++)
+			accountCdf[k] /= total;
+
+		int nTypes = 0;
+		for (int weight : config.getMix().values())
+			if (weight > 0)
+				nTypes++;
+		if (nTypes == 0)
+			throw new IllegalArgumentException("The operation mix is empty");
+
+		types = new OperationType[nTypes];
+		cumulativeWeights = new int[nTypes];
+		int i = 0, weights = 0;
+		for (Map.Entry<OperationType, Integer> e : config.getMix().entrySet()) {
+			if (e.getValue() > 0) {
+				weights += e.getValue();
+				types[i] = e.getKey();
+				cumulativeWeights[i++] = weights;
+			}
+		}
+	}
+
+	public int nextAccount() {
+		int k = Arrays.binarySearch(accountCdf, random.nextDouble());
+		return Math.min(k >= 0 ? k : -k - 1, nAccounts - 1);
+	}
+
+	public Operation next() {
+		int w = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		int i = 0;
+		while (w >= cumulativeWeights[i])
+			i++;
+		OperationType type = types[i];
+
+		int account = nextAccount();
+		switch (type) {
+		case DEPOSIT:
+			return new Operation(thread, type, account, -1, random.nextInt(2 * config.getMaxAmount() + 1) - config.getMaxAmount());
+		case TRANSFER:
+			int other = nextAccount();
+			if (other == account)
+				other = (account + 1) % nAccounts;
+			return new Operation(thread, type, account, other, random.nextInt(2 * config.getMaxAmount() + 1) - config.getMaxAmount());
+		case SET_OVERDRAFT:
+			return new Operation(thread, type, account, -1, -random.nextInt(config.getMaxOverdraft() + 1));
+		default:
+			return new Operation(thread, type, account, -1, 0);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package perez.ruben.bank.accounts.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.Hold;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.scheduling.HoldManager;
+
+public class HoldTest {
+
+	private String testOwner = "Test Owner";
+	private double delta = 0.0001;
+
+	@Test
+	public void testHoldCountsAgainstTheOverdraft() throws OverdraftException {
+
+		CheckingAccount theAccount = new CheckingAccount(testOwner, -100);
+		theAccount.deposit(200);
+
+		Hold hold = theAccount.placeHold(250);
+		assertEquals(200, theAccount.getBalance(), delta);
+		assertEquals(250, theAccount.getHeld(), delta);
+		assertEquals(-50, theAccount.getAvailableBalance(), delta);
+
+		try {
+			theAccount.placeHold(51);
+			fail("The hold exceeds the overdraft");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		try {
+			theAccount.deposit(-51);
+			fail("The withdrawal exceeds the overdraft once the hold is counted");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		try {
+			theAccount.setOverdraft(-40);
+			fail("The hold would exceed the new overdraft");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+
+		// Deposits are always accepted, and increase the available balance
+		theAccount.deposit(10);
+		theAccount.deposit(-60);
+		assertEquals(150, theAccount.getBalance(), delta);
+		assertEquals(-100, theAccount.getAvailableBalance(), delta);
+		assertTrue(hold.isOpen());
+	}
+
+	@Test
+	public void testCaptureAndRelease() throws OverdraftException {
+
+		Account theAccount = new Account(testOwner);
+		theAccount.deposit(100);
+
+		Hold hold = theAccount.placeHold(80);
+		hold.capture(30);
+		assertEquals(70, theAccount.getBalance(), delta);
+		assertEquals(50, hold.getRemaining(), delta);
+		assertEquals(50, theAccount.getHeld(), delta);
+
+		try {
+			hold.capture(51);
+			fail("Only the remaining amount can be captured");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+
+		assertEquals(50, hold.release(), delta);
+		assertFalse(hold.isOpen());
+		assertEquals(0, hold.release(), delta);
+		assertEquals(70, theAccount.getAvailableBalance(), delta);
+
+		// A normal account can not hold more than its balance
+		try {
+			theAccount.placeHold(70.01);
+			fail("The hold exceeds the balance");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		theAccount.placeHold(70).capture(70);
+		assertEquals(0, theAccount.getBalance(), delta);
+	}
+
+	@Test
+	public void testExpiry() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		HoldManager holds = new HoldManager(clock::get, 100);
+
+		CheckingAccount theAccount = new CheckingAccount(testOwner, -1000);
+		List<Hold> placed = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			placed.add(holds.place(theAccount, 10, i < 50 ? 1000 : 5000));
+		assertEquals(-1000, theAccount.getAvailableBalance(), delta);
+
+		// Captured and released holds expire as no-ops
+		placed.get(0).capture(10);
+		placed.get(1).release();
+		placed.get(99).capture(5);
+
+		clock.set(999);
+		assertEquals(0, holds.expire());
+		clock.set(1000);
+		assertEquals(48, holds.expire());
+		assertEquals(-510, theAccount.getAvailableBalance(), delta);
+		assertEquals(50, holds.getPending());
+
+		clock.set(10_000);
+		assertEquals(50, holds.expire());
+		assertEquals(0, theAccount.getHeld(), delta);
+		assertEquals(-15, theAccount.getBalance(), delta);
+		assertEquals(0, holds.getPending());
+	}
+}
@@ -0,0 +1,131 @@
+package perez.ruben.bank.accounts.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.AccountListener;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.exception.OverdraftException;
+
+public class StripedAccountTest {
+
+	private String testOwner = "Test Owner";
+	private double delta = 0.0001;
+
+	@Test
+	public void testDebitsSeeTheCredits() throws OverdraftException {
+
+		StripedAccount theAccount = new StripedAccount(testOwner, -100);
+		theAccount.deposit(50);
+		theAccount.deposit(25);
+		assertEquals(75, theAccount.getBalance(), delta);
+		assertEquals(75, theAccount.getAvailableBalance(), delta);
+
+		// The credits still in the stripes count for the debits, the holds and the overdraft
+		theAccount.deposit(-150);
+		assertEquals(-75, theAccount.getBalance(), delta);
+		try {
+			theAccount.deposit(-25.01);
+			fail("The overdraft was exceeded");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		theAccount.deposit(100);
+		theAccount.placeHold(120);
+		assertEquals(-95, theAccount.getAvailableBalance(), delta);
+		try {
+			theAccount.setOverdraft(-90);
+			fail("The hold is beyond the new overdraft");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+
+		// And so do transfers
+		CheckingAccount other = new CheckingAccount(testOwner, 0);
+		other.deposit(10);
+		other.transfer(10, theAccount);
+		theAccount.transfer(5, other);
+		assertEquals(30, theAccount.getBalance(), delta);
+		assertEquals(5, other.getBalance(), delta);
+	}
+
+	@Test
+	public void testListenersSeeTheFoldedCredits() throws OverdraftException {
+
+		StripedAccount theAccount = new StripedAccount(1, testOwner, 0, 4);
+		List<Double> amounts = new ArrayList<>();
+		List<Double> balances = new ArrayList<>();
+		theAccount.setListener(new AccountListener() {
+			@Override
+			public void balanceChanged(Account account, double amount, Account counterpart) {
+				amounts.add(amount);
+				balances.add(account.getBalance());
+			}
+		});
+
+		theAccount.deposit(10);
+		theAccount.deposit(20);
+		assertTrue(amounts.isEmpty());
+		theAccount.deposit(-5);
+		theAccount.deposit(1);
+		theAccount.consolidate();
+		theAccount.consolidate();
+		assertEquals(3, amounts.size());
+		assertEquals(30, amounts.get(0), delta);
+		assertEquals(-5, amounts.get(1), delta);
+		assertEquals(1, amounts.get(2), delta);
+		assertEquals(26, balances.get(2), delta);
+	}
+
+	@Test
+	public void testConcurrentCreditsAndDebits() throws Exception {
+
+		StripedAccount theAccount = new StripedAccount(2, testOwner, -1000, 8);
+		AtomicInteger debits = new AtomicInteger();
+		AtomicInteger belowOverdraft = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			boolean debiting = t % 4 == 0;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 20000; i++) {
+					if (debiting) {
+						try {
+							theAccount.deposit(-7);
+							debits.incrementAndGet();
+						} catch (OverdraftException e) {
+							// Expected once the overdraft is used up
+						}
+						if (theAccount.getBalance() < -1000)
+							belowOverdraft.incrementAndGet();
+					} else
+						theAccount.deposit(1);
+				}
+				return null;
+			}));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		for (Future<?> f : futures)
+			f.get();
+
+		// Whole amounts, so the sums are exact whatever the order
+		assertEquals(0, belowOverdraft.get());
+		assertEquals(6 * 20000 - 7.0 * debits.get(), theAccount.getBalance(), 0);
+		theAccount.consolidate();
+		assertEquals(6 * 20000 - 7.0 * debits.get(), theAccount.getBalance(), 0);
+	}
+}
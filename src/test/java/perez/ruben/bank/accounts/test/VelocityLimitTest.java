@@ -0,0 +1,144 @@
+package perez.ruben.bank.accounts.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.Hold;
+import perez.ruben.bank.accounts.VelocityLimit;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.exception.VelocityLimitException;
+
+public class VelocityLimitTest {
+
+	private String testOwner = "Test Owner";
+	private double delta = 0.0001;
+
+	@Test
+	public void testNumberOfWithdrawals() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		Account theAccount = new Account(testOwner);
+		theAccount.deposit(1000);
+		theAccount.setVelocityLimit(new VelocityLimit(600_000, 10, 3, 1000, clock::get));
+
+		theAccount.deposit(-1);
+		clock.set(100_000);
+		theAccount.deposit(-1);
+		theAccount.deposit(-1);
+		try {
+			theAccount.deposit(-1);
+			fail("Only three withdrawals are allowed in ten minutes");
+		} catch (VelocityLimitException e) {
+			// OK!
+		}
+
+		// Deposits are never limited
+		theAccount.deposit(10);
+		assertEquals(1007, theAccount.getBalance(), delta);
+
+		// The first withdrawal leaves the window
+		clock.set(600_000);
+		theAccount.deposit(-1);
+		try {
+			theAccount.deposit(-1);
+			fail("The other two withdrawals are still in the window");
+		} catch (VelocityLimitException e) {
+			// OK!
+		}
+
+		clock.set(700_000);
+		theAccount.deposit(-1);
+		theAccount.deposit(-1);
+		assertEquals(1004, theAccount.getBalance(), delta);
+	}
+
+	@Test
+	public void testAmountOfWithdrawals() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		CheckingAccount theAccount = new CheckingAccount(testOwner, -5000);
+		CheckingAccount otherAccount = new CheckingAccount(testOwner);
+		theAccount.setVelocityLimit(new VelocityLimit(60_000, 6, 100, 500, clock::get));
+
+		theAccount.transfer(300, otherAccount);
+		try {
+			theAccount.transfer(201, otherAccount);
+			fail("Only 500 can be withdrawn in a minute");
+		} catch (OverdraftException e) {
+			// OK!
+			assertEquals(VelocityLimitException.class, e.getClass());
+		}
+		// Nothing was deposited in the other account
+		assertEquals(300, otherAccount.getBalance(), delta);
+
+		// A transfer the other way is a deposit
+		theAccount.transfer(-100, otherAccount);
+		theAccount.transfer(200, otherAccount);
+		assertEquals(-400, theAccount.getBalance(), delta);
+
+		// Rejected withdrawals do not count against the limit
+		clock.set(60_000);
+		try {
+			theAccount.deposit(-4601);
+			fail("The overdraft was exceeded");
+		} catch (VelocityLimitException e) {
+			fail("The overdraft is checked first");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		theAccount.deposit(-500);
+
+		theAccount.setVelocityLimit(null);
+		theAccount.deposit(-1000);
+		assertEquals(-1900, theAccount.getBalance(), delta);
+	}
+
+	@Test
+	public void testHolds() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		Account theAccount = new Account(testOwner);
+		theAccount.deposit(1000);
+		theAccount.setVelocityLimit(new VelocityLimit(60_000, 6, 10, 500, clock::get));
+
+		// Holds count when they are placed
+		Hold hold = theAccount.placeHold(400);
+		try {
+			theAccount.placeHold(101);
+			fail("Only 500 can be held or withdrawn in a minute");
+		} catch (VelocityLimitException e) {
+			// OK!
+		}
+		try {
+			theAccount.deposit(-101);
+			fail("Only 500 can be held or withdrawn in a minute");
+		} catch (VelocityLimitException e) {
+			// OK!
+		}
+
+		// So capturing them is always allowed
+		hold.capture(150);
+		hold.capture(250);
+		assertEquals(600, theAccount.getBalance(), delta);
+
+		// And releasing them does not give back the limit
+		Hold other = theAccount.placeHold(100);
+		other.release();
+		try {
+			theAccount.deposit(-1);
+			fail("The released hold still counts");
+		} catch (VelocityLimitException e) {
+			// OK!
+		}
+
+		clock.set(60_000);
+		theAccount.deposit(-500);
+		assertEquals(100, theAccount.getBalance(), delta);
+	}
+}
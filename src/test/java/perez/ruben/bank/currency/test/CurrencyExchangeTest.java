@@ -0,0 +1,146 @@
+package perez.ruben.bank.currency.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.currency.CurrencyExchange;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.currency.FxRateTable;
+import perez.ruben.bank.exception.OverdraftException;
+
+public class CurrencyExchangeTest {
+
+	private final double delta = 0.0001;
+
+	private static final CurrencyRegistry registry = CurrencyRegistry.getDefault();
+	private static final int EUR = registry.idOf("EUR");
+	private static final int USD = registry.register("USD", 2);
+	private static final int JPY = registry.register("JPY", 0);
+
+	@Test
+	public void testRegistry() {
+
+		assertEquals(CurrencyRegistry.DEFAULT_CURRENCY, EUR);
+		assertEquals("USD", registry.codeOf(USD));
+		assertEquals(0, registry.decimalsOf(JPY));
+		assertEquals(USD, registry.register("USD", 2));
+		try {
+			registry.register("USD", 3);
+			fail("USD has 2 decimals");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+		try {
+			registry.idOf("XXX");
+			fail("XXX is not registered");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+	}
+
+	@Test
+	public void testExactConversion() {
+
+		FxRateTable empty = new FxRateTable();
+		FxRateTable rates = empty.withRate("EUR", "USD", "1.0842").withRate("USD", "JPY", "151.237").withRate("JPY", "EUR", "0.006103");
+
+		// Tables are never changed
+		assertFalse(empty.hasRate(EUR, USD));
+		assertTrue(rates.hasRate(EUR, USD));
+		assertFalse(rates.hasRate(USD, EUR));
+		assertTrue(rates.hasRate(USD, USD));
+
+		assertEquals(108.42, rates.convert(100, EUR, USD), 0);
+		// 0.01 EUR is 0.010842 USD, rounded to the cent
+		assertEquals(0.01, rates.convert(0.01, EUR, USD), 0);
+		assertEquals(-108.42, rates.convert(-100, EUR, USD), 0);
+		assertEquals(15125, rates.convert(100.01, USD, JPY), 0);
+		assertEquals(6.10, rates.convert(1000, JPY, EUR), 0);
+
+		// Minor units, with amounts whose products with the rate do not fit in a long
+		assertEquals(10842L * 1_000_000_000L, rates.convertMinor(10_000_000_000_000L, EUR, USD));
+		assertEquals(1_084_200_000_000_000_542L, rates.convertMinor(1_000_000_000_000_000_500L, EUR, USD));
+
+		try {
+			rates.convert(1, USD, EUR);
+			fail("There is no rate from USD to EUR");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+	}
+
+	@Test
+	public void testCrossCurrencyTransfer() throws OverdraftException {
+
+		CurrencyExchange exchange = new CurrencyExchange();
+		exchange.setRate("EUR", "USD", new BigDecimal("1.10"));
+		exchange.setRate("USD", "EUR", new BigDecimal("0.90"));
+
+		CheckingAccount euros = new CheckingAccount("Test Owner", -50);
+		CheckingAccount dollars = new CheckingAccount("Test Owner");
+		dollars.setCurrency("USD");
+		assertEquals("EUR", euros.getCurrency());
+		assertEquals("USD", dollars.getCurrency());
+
+		euros.deposit(100);
+		exchange.transfer(euros, dollars, 100);
+		assertEquals(0, euros.getBalance(), delta);
+		assertEquals(110, dollars.getBalance(), delta);
+
+		// A negative amount moves money the other way, converted with the rate from this account's currency
+		exchange.transfer(euros, dollars, -10);
+		assertEquals(10, euros.getBalance(), delta);
+		assertEquals(99, dollars.getBalance(), delta);
+
+		try {
+			exchange.transfer(euros, dollars, 60.01);
+			fail("The overdraft was exceeded");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		assertEquals(99, dollars.getBalance(), delta);
+
+		try {
+			euros.transfer(10, dollars);
+			fail("Transfers between currencies need rates");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+		try {
+			dollars.setCurrency("EUR");
+			fail("The account has money");
+		} catch (IllegalStateException e) {
+			// OK!
+		}
+	}
+
+	@Test
+	public void testSubCentTransfer() throws OverdraftException {
+
+		CurrencyExchange exchange = new CurrencyExchange();
+		exchange.setRate("EUR", "USD", new BigDecimal("1.10"));
+
+		CheckingAccount euros = new CheckingAccount("Test Owner");
+		CheckingAccount dollars = new CheckingAccount("Test Owner");
+		dollars.setCurrency("USD");
+		euros.deposit(100);
+
+		// Both legs post the amount rounded to the cent
+		exchange.transfer(euros, dollars, 10.125);
+		assertEquals(89.87, euros.getBalance(), delta);
+		assertEquals(11.14, dollars.getBalance(), delta);
+
+		// Less than half a cent moves nothing on either side
+		for (int i = 0; i < 100; i++)
+			exchange.transfer(euros, dollars, 0.004);
+		assertEquals(89.87, euros.getBalance(), delta);
+		assertEquals(11.14, dollars.getBalance(), delta);
+	}
+}
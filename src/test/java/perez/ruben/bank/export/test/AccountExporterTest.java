@@ -0,0 +1,129 @@
+package perez.ruben.bank.export.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.export.AccountExporter;
+import perez.ruben.bank.export.BufferPool;
+import perez.ruben.bank.export.ExportFormat;
+import perez.ruben.bank.store.AccountStore;
+
+public class AccountExporterTest {
+
+	private final double delta = 0.0001;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static AccountStore populate(int count) throws OverdraftException {
+		CurrencyRegistry.getDefault().register("USD", 2);
+		AccountStore store = new AccountStore();
+		for (int i = 0; i < count; i++) {
+			Account account;
+			if (i % 3 == 0)
+				account = new CheckingAccount(i, "Owner " + i, -100);
+			else if (i % 3 == 1) {
+				account = new SavingsAccount(i, "Owner " + i, 0.0125);
+				account.setCurrency("USD");
+			} else
+				account = new Account(i, "Owner " + i);
+			account.deposit(i + 0.256);
+			store.add(account);
+		}
+		return store;
+	}
+
+	@Test
+	public void testCsv() throws OverdraftException, IOException {
+
+		AccountStore store = populate(10);
+		store.get(0).setOwner("P\u00e9rez, \"Rub\u00e9n\"");
+		store.get(0).placeHold(1.5);
+		store.get(3).deposit(-53.256);
+
+		// Tiny buffers, so that every part needs several gather writes
+		List<Path> files = new AccountExporter(new BufferPool(320, 8), 2, 2).export(store, folder.getRoot().toPath(), ExportFormat.CSV, 3);
+		assertEquals(3, files.size());
+
+		List<String> lines = new ArrayList<>();
+		for (Path file : files) {
+			List<String> part = Files.readAllLines(file, StandardCharsets.UTF_8);
+			assertEquals("id,type,owner,balance,held,limit,currency", part.get(0));
+			lines.addAll(part.subList(1, part.size()));
+		}
+		assertEquals(10, lines.size());
+		assertEquals("0,checking,\"P\u00e9rez, \"\"Rub\u00e9n\"\"\",0.26,1.50,-100.00,EUR", lines.get(0));
+		assertEquals("1,savings,Owner 1,1.26,0.00,0.012500,USD", lines.get(1));
+		assertEquals("2,account,Owner 2,2.26,0.00,0,EUR", lines.get(2));
+		assertEquals("3,checking,Owner 3,-50.00,0.00,-100.00,EUR", lines.get(3));
+		assertEquals("9,checking,Owner 9,9.26,0.00,-100.00,EUR", lines.get(9));
+	}
+
+	@Test
+	public void testBinary() throws OverdraftException, IOException {
+
+		AccountStore store = populate(1000);
+		store.get(5).setOwner("\u00c6r\u00f8sk\u00f8bing \ud83d\ude00");
+		BufferPool pool = new BufferPool(4096, 16);
+		AccountExporter exporter = new AccountExporter(pool, 4, 2);
+
+		for (int run = 0; run < 2; run++) {
+			List<Path> files = exporter.export(store, folder.getRoot().toPath().resolve("run" + run), ExportFormat.BINARY, 4);
+			long expectedId = 0;
+			for (Path file : files) {
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+					assertEquals(ExportFormat.MAGIC, in.readInt());
+					assertEquals(ExportFormat.VERSION, in.readInt());
+					while (true) {
+						long id;
+						try {
+							id = in.readLong();
+						} catch (EOFException e) {
+							break;
+						}
+						assertEquals(expectedId++, id);
+						byte type = in.readByte();
+						byte[] owner = new byte[in.readUnsignedShort()];
+						in.readFully(owner);
+						Account account = store.get(id);
+						assertEquals(account.getOwner(), new String(owner, StandardCharsets.UTF_8));
+						assertEquals(account.getBalance(), in.readDouble(), 0);
+						assertEquals(0, in.readDouble(), 0);
+						double limit = in.readDouble();
+						if (type == 'C')
+							assertEquals(-100, limit, delta);
+						else if (type == 'S')
+							assertEquals(0.0125, limit, delta);
+						else
+							assertEquals('A', type);
+						byte[] currency = new byte[in.readUnsignedShort()];
+						in.readFully(currency);
+						assertEquals(account.getCurrency(), new String(currency, StandardCharsets.US_ASCII));
+					}
+				}
+			}
+			assertEquals(1000, expectedId);
+		}
+		// Every writer gave its buffers back
+		assertTrue(pool.getPooled() >= 4);
+	}
+}
@@ -0,0 +1,136 @@
+package perez.ruben.bank.export.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.export.AccountExporter;
+import perez.ruben.bank.export.AccountLoader;
+import perez.ruben.bank.export.ExportFormat;
+import perez.ruben.bank.owners.OwnerIndex;
+import perez.ruben.bank.reconciliation.BalanceTree;
+import perez.ruben.bank.store.AccountStore;
+
+public class AccountLoaderTest {
+
+	private final double delta = 0.0001;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String name, String... lines) throws IOException {
+		Path file = folder.getRoot().toPath().resolve(name);
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+		return file;
+	}
+
+	@Test
+	public void testLoadsAnExport() throws OverdraftException, IOException {
+
+		CurrencyRegistry.getDefault().register("USD", 2);
+		AccountStore store = new AccountStore();
+		for (int i = 0; i < 3000; i++) {
+			Account account;
+			if (i % 9 == 0)
+				account = new StripedAccount(i, "Owner " + i % 100, -100);
+			else if (i % 3 == 0)
+				account = new CheckingAccount(i, "Owner " + i % 100, -100);
+			else if (i % 3 == 1)
+				account = new SavingsAccount(i, "Owner " + i % 100, 0.0125);
+			else
+				account = new Account(i, "Owner " + i % 100);
+			if (i % 5 == 1)
+				account.setCurrency("USD");
+			account.deposit(i % 3 == 0 ? -i % 100 - 0.25 : i + 0.5);
+			store.add(account);
+		}
+		store.get(7).setOwner("P\u00e9rez, \"Rub\u00e9n\"");
+		List<Path> files = new AccountExporter().export(store, folder.getRoot().toPath(), ExportFormat.CSV, 3);
+
+		// Chunks of a few lines, so that lines often straddle them
+		OwnerIndex owners = new OwnerIndex();
+		BalanceTree tree = new BalanceTree(4096);
+		AccountStore loaded = new AccountLoader(100).load(files, owners, tree);
+
+		assertEquals(3000, loaded.size());
+		for (Account account : store.accounts()) {
+			Account copy = loaded.get(account.getId());
+			assertEquals(account.getClass(), copy.getClass());
+			assertEquals(account.getOwner(), copy.getOwner());
+			assertEquals(account.getCurrency(), copy.getCurrency());
+			assertEquals(account.getBalance(), copy.getBalance(), delta);
+			if (account instanceof CheckingAccount)
+				assertEquals(-100, ((CheckingAccount) copy).getOverdraft(), delta);
+			else if (account instanceof SavingsAccount)
+				assertEquals(0.0125, ((SavingsAccount) copy).getInterestRate(), delta);
+		}
+		assertEquals(Collections.singleton(7L), owners.accountsOf("P\u00e9rez, \"Rub\u00e9n\""));
+		assertEquals(loaded.stream().mapToDouble(Account::getBalance).sum(), tree.getTotal(), delta);
+
+		// The loaded accounts are live
+		loaded.get(0, CheckingAccount.class).transfer(10, loaded.get(3, CheckingAccount.class));
+		assertEquals(-10.25, loaded.get(0).getBalance(), delta);
+	}
+
+	@Test
+	public void testInvalidLinesFailTheLoad() throws IOException {
+
+		String header = "id,type,owner,balance,held,limit,currency";
+		String[][] invalid = {
+				{ "1,checking,Owner,-150.00,0.00,-100.00,EUR", "The balance is beyond the limit of the account" },
+				{ "1,savings,Owner,10.00,2.00,0.01,EUR", "Holds can not be loaded" },
+				{ "1,deposit,Owner,10.00,0.00,0,EUR", "Unknown type of account" },
+				{ "1,account,Owner,10.00,0.00,0", "Expected 7 fields" },
+				{ "1,account,Owner,1e,0.00,0,EUR", "1e" },
+				{ "1,checking,Owner,0.00,0.00,100.00,EUR", "Overdraft must be negative" },
+				{ "1,account,\"Owner,10.00,0.00,0,EUR", "Unterminated owner" },
+				{ "1,account,Owner,10.00,0.00,0,XYZ", "Unknown currency XYZ" } };
+		for (String[] line : invalid) {
+			Path file = write("invalid.csv", header, "0,account,Owner,1.00,0.00,0,EUR", "", line[0], "2,account,Owner,1.00,0.00,0,EUR");
+			try {
+				new AccountLoader(8).load(file);
+				fail("The line is invalid: " + line[0]);
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith(file + ":4: "));
+				assertTrue(e.getMessage(), e.getMessage().contains(line[1]));
+			}
+		}
+
+		try {
+			new AccountLoader().load(write("header.csv", "id,type,owner,balance,held,limit", "0,account,Owner,1.00,0.00,0"));
+			fail("The header is invalid");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(":1: "));
+		}
+
+		// Duplicates across files
+		Path first = write("first.csv", header, "0,account,Owner,1.00,0.00,0,EUR", "1,account,Owner,1.00,0.00,0,EUR");
+		Path second = write("second.csv", header, "2,account,Owner,1.00,0.00,0,EUR", "1,savings,Owner,1.00,0.00,0.01,EUR");
+		try {
+			new AccountLoader().load(Arrays.asList(first, second));
+			fail("Account 1 is duplicated");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("id 1 already exists"));
+		}
+		assertEquals(3, new AccountLoader().load(Arrays.asList(first, write("third.csv", header, "2,account,Owner,0,0,0,EUR")))
+				.size());
+	}
+}
@@ -0,0 +1,123 @@
+package perez.ruben.bank.kernels.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.kernels.AccountColumns;
+import perez.ruben.bank.kernels.AccountKernels;
+import perez.ruben.bank.kernels.ScalarKernels;
+
+public class AccountKernelsTest {
+
+	private static double[] random(Random random, int n, double scale, double offset) {
+		double[] values = new double[n];
+		for (int i = 0; i < n; i++)
+			values[i] = random.nextDouble() * scale + offset;
+		return values;
+	}
+
+	@Test
+	public void testKernelsMatchTheScalarOnes() {
+
+		// Run with the "vector" profile, the best kernels are the vectorized ones
+		AccountKernels scalar = new ScalarKernels();
+		AccountKernels best = AccountKernels.best();
+		Random random = new Random(42);
+		// Sizes and offsets that are not multiples of any vector length
+		for (int n : new int[] { 0, 1, 7, 100, 1029 }) {
+			double[] balances = random(random, n, 2000, -1000);
+			double[] rates = random(random, n, 0.05, 0);
+			double[] flows = random(random, n, 200, -100);
+			double[] limits = random(random, n, -1000, 0);
+			for (int from : new int[] { 0, Math.min(n, 3) }) {
+				double[] expected = new double[n];
+				double[] actual = new double[n];
+				scalar.interest(balances, rates, expected, from, n);
+				best.interest(balances, rates, actual, from, n);
+				assertArrayEquals(expected, actual, 0);
+
+				scalar.project(balances, rates, flows, expected, from, n);
+				best.project(balances, rates, flows, actual, from, n);
+				assertArrayEquals(expected, actual, 0);
+
+				int[] expectedIndexes = new int[n];
+				int[] actualIndexes = new int[n];
+				int count = scalar.breaches(balances, limits, 0.9, expectedIndexes, from, n);
+				assertEquals(count, best.breaches(balances, limits, 0.9, actualIndexes, from, n));
+				assertArrayEquals(expectedIndexes, actualIndexes);
+			}
+		}
+	}
+
+	@Test
+	public void testColumnsMatchTheAccounts() throws OverdraftException {
+
+		List<Account> accounts = new ArrayList<>();
+		Random random = new Random(7);
+		// More than one chunk
+		for (int i = 0; i < 200_000; i++) {
+			Account account;
+			if (i % 3 == 0)
+				account = new SavingsAccount(i, "Owner", random.nextDouble() * 0.05);
+			else if (i % 3 == 1)
+				account = new CheckingAccount(i, "Owner", -random.nextInt(1000));
+			else
+				account = new Account(i, "Owner");
+			double amount = random.nextDouble() * 2000 - (i % 3 == 1 ? 1000 : 0);
+			if (account instanceof CheckingAccount && amount < ((CheckingAccount) account).getOverdraft())
+				amount = 0;
+			account.deposit(amount);
+			accounts.add(account);
+		}
+		AccountColumns columns = AccountColumns.of(accounts);
+		AccountKernels kernels = AccountKernels.best();
+
+		double[] interest = columns.interest(kernels);
+		double[] flows = new double[columns.size()];
+		for (int i = 0; i < flows.length; i++)
+			flows[i] = i % 2 == 0 ? -300 : 100;
+		double[] projected = columns.project(kernels, flows);
+		List<Long> expectedBreaches = new ArrayList<>();
+		List<Long> expectedProjectedBreaches = new ArrayList<>();
+		for (int i = 0; i < accounts.size(); i++) {
+			Account account = accounts.get(i);
+			double rate = account instanceof SavingsAccount ? ((SavingsAccount) account).getInterestRate() : 0;
+			double limit = account instanceof CheckingAccount ? ((CheckingAccount) account).getOverdraft() : 0;
+			assertEquals(account.getId(), columns.getIds()[i]);
+			assertEquals(account instanceof SavingsAccount ? ((SavingsAccount) account).getInterest() : 0, interest[i], 0);
+			double expected = account.getBalance() * rate + account.getBalance() + flows[i];
+			assertEquals(expected, projected[i], 0);
+			if (account.getBalance() < limit * 0.9)
+				expectedBreaches.add(account.getId());
+			if (expected < limit)
+				expectedProjectedBreaches.add(account.getId());
+		}
+		assertEquals(expectedBreaches, toList(columns.breaches(kernels, columns.getBalances(), 0.9)));
+		assertEquals(expectedProjectedBreaches, toList(columns.breaches(kernels, projected, 1)));
+
+		try {
+			columns.project(kernels, new double[1]);
+			fail("There must be one flow per account");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+	}
+
+	private static List<Long> toList(long[] values) {
+		List<Long> list = new ArrayList<>();
+		for (long value : values)
+			list.add(value);
+		return list;
+	}
+}
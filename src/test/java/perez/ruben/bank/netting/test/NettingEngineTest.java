@@ -0,0 +1,111 @@
+package perez.ruben.bank.netting.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.netting.NettingEngine;
+import perez.ruben.bank.netting.NettingResult;
+import perez.ruben.bank.netting.Transfer;
+
+public class NettingEngineTest {
+
+	private double delta = 0.0001;
+
+	@Test
+	public void testBackAndForthTransfersAreNetted() throws OverdraftException {
+
+		CheckingAccount first = new CheckingAccount("First Owner");
+		CheckingAccount second = new CheckingAccount("Second Owner");
+		first.deposit(100);
+		second.deposit(100);
+
+		// Each of the big transfers on its own would overdraft, but the net position of both accounts is +/- 50
+		List<Transfer> transfers = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			transfers.add(new Transfer(first, second, 500));
+			transfers.add(new Transfer(second, first, 500));
+		}
+		transfers.add(new Transfer(first, second, 50));
+
+		NettingResult result = new NettingEngine().settle(transfers);
+
+		assertEquals(transfers.size(), result.getApplied().size());
+		assertEquals(0, result.getRejected().size());
+		assertEquals(2, result.getPostings().size());
+		assertEquals(50, first.getBalance(), delta);
+		assertEquals(150, second.getBalance(), delta);
+	}
+
+	@Test
+	public void testOverdraftingPayerIsRejected() throws OverdraftException {
+
+		CheckingAccount rich = new CheckingAccount("Rich Owner");
+		CheckingAccount poor = new CheckingAccount("Poor Owner", -100);
+		CheckingAccount other = new CheckingAccount("Other Owner");
+		rich.deposit(1000);
+		poor.deposit(50);
+
+		Transfer fromRich = new Transfer(rich, poor, 300);
+		Transfer fromPoor = new Transfer(poor, other, 600);
+		// A negative amount makes the destination pay
+		Transfer fromOther = new Transfer(poor, other, -100);
+
+		List<Transfer> transfers = new ArrayList<>();
+		transfers.add(fromRich);
+		transfers.add(fromPoor);
+		transfers.add(fromOther);
+
+		NettingResult result = new NettingEngine().settle(transfers);
+
+		// "poor" would end at 50 + 300 - 600 + 100 = -150, below its overdraft, and is rejected
+		// Without the 600 from "poor", "other" can't pay its 100 and is rejected too
+		assertEquals(1, result.getApplied().size());
+		assertTrue(result.getApplied().contains(fromRich));
+		assertEquals(2, result.getRejected().size());
+		assertTrue(result.getRejected().contains(fromPoor));
+		assertTrue(result.getRejected().contains(fromOther));
+
+		assertEquals(700, rich.getBalance(), delta);
+		assertEquals(350, poor.getBalance(), delta);
+		assertEquals(0, other.getBalance(), delta);
+	}
+
+	@Test
+	public void testMoneyIsConserved() throws OverdraftException {
+
+		int nAccounts = 50;
+		int nTransfers = 200000;
+		double initialBalance = 1000;
+
+		Random r = new Random(42);
+		CheckingAccount[] accounts = new CheckingAccount[nAccounts];
+		for (int i = 0; i < nAccounts; i++) {
+			accounts[i] = new CheckingAccount("Owner " + i, -500);
+			accounts[i].deposit(initialBalance);
+		}
+
+		List<Transfer> transfers = new ArrayList<>();
+		for (int i = 0; i < nTransfers; i++) {
+			// Whole amounts keep the sums exact
+			transfers.add(new Transfer(accounts[r.nextInt(nAccounts)], accounts[r.nextInt(nAccounts)], r.nextInt(100)));
+		}
+
+		NettingResult result = new NettingEngine().settle(transfers);
+		assertEquals(nTransfers, result.getApplied().size() + result.getRejected().size());
+
+		double total = 0;
+		for (CheckingAccount acc : accounts) {
+			assertTrue(acc.getBalance() >= acc.getOverdraft());
+			total += acc.getBalance();
+		}
+		assertEquals(nAccounts * initialBalance, total, delta);
+	}
+}
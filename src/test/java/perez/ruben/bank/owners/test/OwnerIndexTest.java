@@ -0,0 +1,138 @@
+package perez.ruben.bank.owners.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.owners.OwnerDictionary;
+import perez.ruben.bank.owners.OwnerIndex;
+import perez.ruben.bank.store.AccountStore;
+
+public class OwnerIndexTest {
+
+	@Test
+	public void testOwnerNamesAreShared() {
+
+		// Build the names at runtime so they are distinct String instances
+		Account first = new Account(new StringBuilder("Shared ").append("Owner").toString());
+		Account second = new SavingsAccount(new StringBuilder("Shared ").append("Owner").toString());
+		assertSame(first.getOwner(), second.getOwner());
+
+		second.setOwner(new String("Another Owner"));
+		first.setOwner(new String("Another Owner"));
+		assertSame(first.getOwner(), second.getOwner());
+	}
+
+	@Test
+	public void testDictionary() {
+
+		OwnerDictionary dictionary = new OwnerDictionary();
+		assertEquals(-1, dictionary.find("Nobody"));
+
+		int id = dictionary.idOf("Somebody");
+		assertEquals(id, dictionary.idOf("Somebody"));
+		assertEquals(id, dictionary.find("Somebody"));
+		assertEquals("Somebody", dictionary.nameOf(id));
+
+		// Grow beyond the initial capacity
+		for (int i = 0; i < 5000; i++)
+			assertEquals("Owner " + i, dictionary.nameOf(dictionary.idOf("Owner " + i)));
+		assertEquals(5001, dictionary.size());
+	}
+
+	@Test
+	public void testExactAndPrefixLookup() {
+
+		AccountStore store = new AccountStore();
+		OwnerIndex index = new OwnerIndex();
+		store.addListener(index);
+
+		Account john1 = new CheckingAccount("John Doe");
+		Account john2 = new SavingsAccount("John Doe");
+		Account johnny = new Account("Johnny Smith");
+		Account jane = new Account("Jane Doe");
+		store.add(john1);
+		store.add(john2);
+		store.add(johnny);
+		store.add(jane);
+
+		assertEquals(new HashSet<>(Arrays.asList(john1.getId(), john2.getId())), index.accountsOf("John Doe"));
+		assertEquals(new HashSet<>(Arrays.asList(jane.getId())), index.accountsOf("Jane Doe"));
+		assertTrue(index.accountsOf("Nobody").isEmpty());
+
+		assertEquals(new HashSet<>(Arrays.asList(john1.getId(), john2.getId(), johnny.getId())), index.accountsWithOwnerPrefix("John"));
+		assertEquals(4, index.accountsWithOwnerPrefix("J").size());
+		assertEquals(new HashSet<>(Arrays.asList("John Doe", "Johnny Smith")), index.ownersWithPrefix("John", 10));
+
+		john2.setOwner("Jane Doe");
+		assertEquals(new HashSet<>(Arrays.asList(john1.getId())), index.accountsOf("John Doe"));
+		assertEquals(new HashSet<>(Arrays.asList(jane.getId(), john2.getId())), index.accountsOf("Jane Doe"));
+
+		store.remove(jane);
+		assertEquals(new HashSet<>(Arrays.asList(john2.getId())), index.accountsOf("Jane Doe"));
+	}
+
+	@Test
+	public void testSameOwnerAgain() {
+
+		AccountStore store = new AccountStore();
+		OwnerIndex index = new OwnerIndex();
+		store.addListener(index);
+
+		Account account = new Account("John Doe");
+		store.add(account);
+		// An equal name that is not the same instance
+		account.setOwner(new String("John Doe"));
+		account.setOwner("John Doe");
+
+		assertEquals(new HashSet<>(Arrays.asList(account.getId())), index.accountsOf("John Doe"));
+	}
+
+	@Test
+	public void testConcurrentOwnerChanges() throws InterruptedException {
+
+		int nAccounts = 100;
+		int nThreads = 4;
+		String[] owners = { "Owner A", "Owner B", "Owner C" };
+
+		AccountStore store = new AccountStore();
+		OwnerIndex index = new OwnerIndex();
+		store.addListener(index);
+
+		Account[] accounts = new Account[nAccounts];
+		for (int i = 0; i < nAccounts; i++) {
+			accounts[i] = new Account(owners[0]);
+			store.add(accounts[i]);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		for (int t = 0; t < nThreads; t++) {
+			int seed = t;
+			executor.submit(() -> {
+				for (int i = 0; i < 10000; i++)
+					accounts[(i * 7 + seed) % nAccounts].setOwner(owners[(i + seed) % owners.length]);
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		// Every account is indexed exactly once, under its current owner
+		int total = 0;
+		for (String owner : owners)
+			total += index.accountsOf(owner).size();
+		assertEquals(nAccounts, total);
+		for (Account acc : accounts)
+			assertTrue(index.accountsOf(acc.getOwner()).contains(acc.getId()));
+	}
+}
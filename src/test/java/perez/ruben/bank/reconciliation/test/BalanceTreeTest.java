@@ -0,0 +1,160 @@
+package perez.ruben.bank.reconciliation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.reconciliation.BalanceTree;
+import perez.ruben.bank.store.AccountStore;
+
+public class BalanceTreeTest {
+
+	private final double delta = 0.0001;
+
+	private static CheckingAccount[] populate(AccountStore store, int count, int firstId) throws OverdraftException {
+		CheckingAccount[] accounts = new CheckingAccount[count];
+		for (int i = 0; i < count; i++) {
+			accounts[i] = new CheckingAccount(firstId + i, "Owner " + i, -100);
+			accounts[i].deposit(i);
+			store.add(accounts[i]);
+		}
+		return accounts;
+	}
+
+	@Test
+	public void testTotalFollowsCommits() throws OverdraftException {
+
+		AccountStore store = new AccountStore();
+		BalanceTree tree = new BalanceTree(64);
+		store.addListener(tree);
+
+		CheckingAccount[] accounts = populate(store, 50, 0);
+		assertEquals(49 * 50 / 2, tree.getTotal(), delta);
+
+		accounts[3].deposit(100);
+		accounts[7].transfer(50, accounts[8]);
+		assertEquals(49 * 50 / 2 + 100, tree.getTotal(), delta);
+
+		try {
+			accounts[0].deposit(-500);
+			fail("The overdraft was exceeded");
+		} catch (OverdraftException e) {
+			// OK!
+		}
+		assertEquals(49 * 50 / 2 + 100, tree.getTotal(), delta);
+
+		store.remove(accounts[49]);
+		assertEquals(49 * 50 / 2 + 100 - 49, tree.getTotal(), delta);
+	}
+
+	@Test
+	public void testDiffFindsDivergentAccounts() throws OverdraftException {
+
+		AccountStore leader = new AccountStore();
+		BalanceTree leaderTree = new BalanceTree(1024);
+		leader.addListener(leaderTree);
+		CheckingAccount[] leaderAccounts = populate(leader, 1000, 0);
+
+		AccountStore replica = new AccountStore();
+		BalanceTree replicaTree = new BalanceTree(1024);
+		replica.addListener(replicaTree);
+		CheckingAccount[] replicaAccounts = populate(replica, 1000, 0);
+
+		assertEquals(leaderTree.getDigest(), replicaTree.getDigest());
+		assertEquals(Collections.emptyList(), leaderTree.diff(replicaTree));
+
+		// Same total, different balances
+		leaderAccounts[10].transfer(5, leaderAccounts[900]);
+		replicaAccounts[500].deposit(0.01);
+		assertNotEquals(leaderTree.getDigest(), replicaTree.getDigest());
+		assertEquals(Arrays.asList(10L, 500L, 900L), leaderTree.diff(replicaTree));
+
+		replicaAccounts[10].transfer(5, replicaAccounts[900]);
+		replicaAccounts[500].deposit(-0.01);
+		assertEquals(Collections.emptyList(), leaderTree.diff(replicaTree));
+	}
+
+	@Test
+	public void testLoadExistingAccounts() throws OverdraftException {
+
+		AccountStore store = new AccountStore();
+		populate(store, 10, 0);
+
+		BalanceTree tree = new BalanceTree(16);
+		store.addListener(tree);
+		tree.load(store.accounts());
+		assertEquals(45, tree.getTotal(), delta);
+	}
+
+	@Test
+	public void testIdsOutOfRange() {
+
+		try {
+			new BalanceTree(1000);
+			fail("The capacity is not a power of two");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+
+		AccountStore store = new AccountStore();
+		store.addListener(new BalanceTree(16));
+		Account account = new Account(16, "Owner");
+		try {
+			store.add(account);
+			fail("The id is out of the range of the tree");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+		assertEquals(0, store.size());
+		assertEquals(null, account.getListener());
+	}
+
+	@Test
+	public void testConcurrentTransfers() throws OverdraftException, InterruptedException {
+
+		AccountStore store = new AccountStore();
+		BalanceTree tree = new BalanceTree(256);
+		store.addListener(tree);
+		CheckingAccount[] accounts = populate(store, 200, 0);
+		double total = tree.getTotal();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			int seed = t;
+			executor.execute(() -> {
+				for (int i = 0; i < 20000; i++) {
+					int from = (i * 7 + seed * 13) % accounts.length;
+					int to = (i * 11 + seed * 17 + 1) % accounts.length;
+					if (from != to)
+						try {
+							accounts[from].transfer(1, accounts[to]);
+						} catch (OverdraftException e) {
+							// Transfers beyond the overdraft are rejected
+						}
+					if (i % 1000 == 0)
+						tree.getTotal();
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		double sum = 0;
+		for (Account a : accounts)
+			sum += a.getBalance();
+		assertEquals(sum, tree.getTotal(), delta);
+		assertEquals(total, tree.getTotal(), delta);
+	}
+}
@@ -0,0 +1,250 @@
+package perez.ruben.bank.replication.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.replication.ReplicationFollower;
+import perez.ruben.bank.replication.ReplicationJournal;
+import perez.ruben.bank.replication.ReplicationLeader;
+import perez.ruben.bank.store.AccountStore;
+
+public class ReplicationTest {
+
+	private double delta = 0.0001;
+	private List<AutoCloseable> resources = new ArrayList<>();
+
+	@After
+	public void close() throws Exception {
+		for (AutoCloseable resource : resources)
+			resource.close();
+	}
+
+	private AccountStore leaderStore(ReplicationJournal journal) {
+		AccountStore store = new AccountStore();
+		store.addListener(journal);
+		return store;
+	}
+
+	private InetSocketAddress startLeader(AccountStore store, ReplicationJournal journal) throws IOException {
+		ReplicationLeader leader = new ReplicationLeader(store, journal, 0);
+		leader.start();
+		resources.add(leader);
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), leader.getPort());
+	}
+
+	private ReplicationFollower startFollower(InetSocketAddress leader) {
+		ReplicationFollower follower = new ReplicationFollower(leader);
+		follower.start();
+		resources.add(follower);
+		return follower;
+	}
+
+	private void awaitCatchUp(ReplicationFollower follower, ReplicationJournal journal) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (follower.getAppliedSequence() != journal.getNextSequence()) {
+			if (System.currentTimeMillis() > deadline)
+				fail("The follower did not catch up: " + follower.getAppliedSequence() + " of " + journal.getNextSequence());
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testMutationsAreReplicated() throws IOException, OverdraftException, InterruptedException {
+
+		ReplicationJournal journal = new ReplicationJournal(1 << 16);
+		AccountStore store = leaderStore(journal);
+		ReplicationFollower follower = startFollower(startLeader(store, journal));
+
+		Account account = new Account(1, "Account Owner");
+		SavingsAccount savings = new SavingsAccount(2, "Savings Owner", 0.1);
+		CheckingAccount first = new CheckingAccount(3, "First Owner", -500);
+		CheckingAccount second = new CheckingAccount(4, "Second Owner", 0);
+		store.add(account);
+		store.add(savings);
+		store.add(first);
+		store.add(second);
+
+		account.deposit(100);
+		account.deposit(-40);
+		savings.deposit(1000);
+		savings.setInterestRate(0.05);
+		savings.payInterest();
+		first.transfer(300, second);
+		second.transfer(-50, first);
+		first.setOverdraft(-1000);
+
+		awaitCatchUp(follower, journal);
+
+		assertEquals(4, follower.size());
+		assertEquals(60, follower.getBalance(1), delta);
+		assertEquals(1050, follower.getBalance(2), delta);
+		double[] balances = follower.getBalances(3, 4);
+		assertEquals(-350, balances[0], delta);
+		assertEquals(350, balances[1], delta);
+		assertEquals(0, follower.getLag());
+	}
+
+	@Test
+	public void testLateFollowerStartsFromSnapshot() throws IOException, OverdraftException, InterruptedException {
+
+		// A small journal forces the follower to start from a snapshot of the accounts
+		int nAccounts = 100;
+		ReplicationJournal journal = new ReplicationJournal(16);
+		AccountStore store = leaderStore(journal);
+		InetSocketAddress leader = startLeader(store, journal);
+
+		Random r = new Random(42);
+		CheckingAccount[] accounts = new CheckingAccount[nAccounts];
+		for (int i = 0; i < nAccounts; i++) {
+			accounts[i] = new CheckingAccount(100 + i, "Owner " + i, -1000);
+			store.add(accounts[i]);
+		}
+		for (int i = 0; i < 10000; i++)
+			accounts[r.nextInt(nAccounts)].deposit(r.nextInt(100));
+
+		ReplicationFollower follower = startFollower(leader);
+
+		// Keep changing the accounts while the follower starts
+		for (int i = 0; i < 10000; i++)
+			accounts[r.nextInt(nAccounts)].transfer(r.nextInt(10), accounts[r.nextInt(nAccounts)]);
+
+		awaitCatchUp(follower, journal);
+		for (CheckingAccount acc : accounts)
+			assertEquals(acc.getBalance(), follower.getBalance(acc.getId()), delta);
+	}
+
+	@Test
+	public void testFollowerTakesOver() throws Exception {
+
+		ReplicationJournal journal = new ReplicationJournal(1 << 10);
+		AccountStore store = leaderStore(journal);
+		ReplicationFollower follower = startFollower(startLeader(store, journal));
+
+		CheckingAccount checking = new CheckingAccount(10, "Checking Owner", -200);
+		SavingsAccount savings = new SavingsAccount(11, "Savings Owner", 0.02);
+		StripedAccount striped = new StripedAccount(12, "Merchant", -100);
+		store.add(checking);
+		store.add(savings);
+		store.add(striped);
+		checking.setOwner("New Checking Owner");
+		checking.deposit(-150);
+		savings.deposit(500);
+		striped.deposit(300);
+		striped.consolidate();
+
+		awaitCatchUp(follower, journal);
+		assertEquals("New Checking Owner", follower.getOwner(10));
+		AccountStore promoted = follower.promote();
+
+		CheckingAccount newChecking = promoted.get(10, CheckingAccount.class);
+		assertEquals(-150, newChecking.getBalance(), delta);
+		assertEquals(-200, newChecking.getOverdraft(), delta);
+		assertEquals("New Checking Owner", newChecking.getOwner());
+
+		SavingsAccount newSavings = promoted.get(11, SavingsAccount.class);
+		assertEquals(500, newSavings.getBalance(), delta);
+		assertEquals(0.02, newSavings.getInterestRate(), delta);
+
+		// Striped accounts keep their type, and the credits folded by the leader
+		StripedAccount newStriped = promoted.get(12, StripedAccount.class);
+		assertEquals(300, newStriped.getBalance(), delta);
+		assertEquals(-100, newStriped.getOverdraft(), delta);
+
+		// The new leader keeps its own journal for its followers
+		ReplicationJournal newJournal = new ReplicationJournal(1 << 10);
+		promoted.addListener(newJournal);
+		ReplicationFollower newFollower = startFollower(startLeader(promoted, newJournal));
+		newSavings.payInterest();
+
+		awaitCatchUp(newFollower, newJournal);
+		assertEquals(510, newFollower.getBalance(11), delta);
+	}
+
+	@Test
+	public void testCurrenciesAreReplicated() throws Exception {
+
+		CurrencyRegistry.getDefault().register("USD", 2);
+		ReplicationJournal journal = new ReplicationJournal(16);
+		AccountStore store = leaderStore(journal);
+		InetSocketAddress leader = startLeader(store, journal);
+
+		// Opened in USD, so the currency travels in the snapshot
+		CheckingAccount dollars = new CheckingAccount(30, "Dollar Owner", -100);
+		dollars.setCurrency("USD");
+		store.add(dollars);
+		dollars.deposit(50);
+		for (int i = 0; i < 20; i++)
+			store.add(new Account(100 + i, "Owner " + i));
+		ReplicationFollower follower = startFollower(leader);
+		awaitCatchUp(follower, journal);
+		assertEquals("USD", follower.getCurrency(30));
+
+		// Changed once replicated, so it travels as a record
+		Account changed = store.get(100);
+		changed.setCurrency("USD");
+		changed.deposit(20);
+		awaitCatchUp(follower, journal);
+		assertEquals("USD", follower.getCurrency(100));
+		assertEquals("EUR", follower.getCurrency(101));
+
+		AccountStore promoted = follower.promote();
+		assertEquals("USD", promoted.get(30).getCurrency());
+		assertEquals(50, promoted.get(30).getBalance(), delta);
+		assertEquals("USD", promoted.get(100).getCurrency());
+		assertEquals("EUR", promoted.get(101).getCurrency());
+	}
+
+	@Test
+	public void testRemovedAccountsAreReplicated() throws Exception {
+
+		ReplicationJournal journal = new ReplicationJournal(1 << 10);
+		AccountStore store = leaderStore(journal);
+		ReplicationFollower follower = startFollower(startLeader(store, journal));
+
+		CheckingAccount kept = new CheckingAccount(20, "Kept Owner", 0);
+		CheckingAccount closed = new CheckingAccount(21, "Closed Owner", 0);
+		store.add(kept);
+		store.add(closed);
+		closed.deposit(100);
+		closed.transfer(100, kept);
+		store.remove(closed);
+
+		awaitCatchUp(follower, journal);
+		assertEquals(1, follower.size());
+		assertEquals(100, follower.getBalance(20), delta);
+		try {
+			follower.getBalance(21);
+			fail("The removed account is still replicated");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+
+		// The id can be used again once the account is closed
+		CheckingAccount reopened = new CheckingAccount(21, "New Owner", -50);
+		store.add(reopened);
+		reopened.deposit(-30);
+		awaitCatchUp(follower, journal);
+
+		AccountStore promoted = follower.promote();
+		assertEquals(2, promoted.size());
+		assertEquals(100, promoted.get(20).getBalance(), delta);
+		assertEquals(-30, promoted.get(21).getBalance(), delta);
+		assertEquals("New Owner", promoted.get(21).getOwner());
+	}
+}
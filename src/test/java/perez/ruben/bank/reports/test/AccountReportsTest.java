@@ -0,0 +1,106 @@
+package perez.ruben.bank.reports.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.reports.AccountReports;
+import perez.ruben.bank.store.AccountStore;
+
+public class AccountReportsTest {
+
+	private final double delta = 0.0001;
+
+	private static AccountStore populate() throws OverdraftException {
+		AccountStore store = new AccountStore();
+		for (int i = 0; i < 1000; i++) {
+			SavingsAccount savings = new SavingsAccount("Saver " + i, 0.01);
+			savings.deposit(i);
+			store.add(savings);
+
+			// Balances from -500 to 499, with an overdraft of -1000
+			CheckingAccount checking = new CheckingAccount("Spender " + i, -1000);
+			checking.deposit(i - 500);
+			store.add(checking);
+		}
+		return store;
+	}
+
+	@Test
+	public void testBalances() throws OverdraftException {
+
+		AccountReports reports = new AccountReports(populate());
+
+		DoubleSummaryStatistics all = reports.balances();
+		assertEquals(2000, all.getCount());
+		assertEquals(999 * 1000 / 2 * 2 - 500 * 1000, all.getSum(), delta);
+		assertEquals(-500, all.getMin(), delta);
+		assertEquals(999, all.getMax(), delta);
+
+		DoubleSummaryStatistics savings = reports.balances(SavingsAccount.class);
+		assertEquals(1000, savings.getCount());
+		assertEquals(499.5, savings.getAverage(), delta);
+
+		Map<Class<? extends Account>, DoubleSummaryStatistics> byType = reports.balancesByType();
+		assertEquals(2, byType.size());
+		assertEquals(-0.5, byType.get(CheckingAccount.class).getAverage(), delta);
+
+		// Below -100, [-100, 0), [0, 100), from 100 up
+		assertArrayEquals(new long[] { 400, 100, 200, 1300 }, reports.balanceHistogram(100, -100, 0));
+	}
+
+	@Test
+	public void testOverdraftAndInterest() throws OverdraftException {
+
+		AccountReports reports = new AccountReports(populate());
+
+		DoubleSummaryStatistics utilization = reports.overdraftUtilization();
+		assertEquals(1000, utilization.getCount());
+		assertEquals(0.5, utilization.getMax(), delta);
+		assertEquals(0, utilization.getMin(), delta);
+		// 500 * 501 / 2 owed over 1000 accounts with 1000 of overdraft each
+		assertEquals(125250.0 / 1000 / 1000, utilization.getAverage(), delta);
+		assertEquals(125250, reports.overdraftInUse(), delta);
+
+		assertEquals(999 * 1000 / 2 * 0.01, reports.accruedInterest(), delta);
+	}
+
+	@Test
+	public void testReportsDuringTransfers() throws OverdraftException, InterruptedException {
+
+		AccountStore store = populate();
+		AccountReports reports = new AccountReports(store);
+		double total = reports.balances().getSum();
+		CheckingAccount[] accounts = store.parallelStream(CheckingAccount.class).toArray(CheckingAccount[]::new);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		for (int t = 0; t < 2; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 20000; i++)
+					try {
+						accounts[i % accounts.length].transfer(1, accounts[(i * 31 + 7) % accounts.length]);
+					} catch (OverdraftException e) {
+						// Transfers beyond the overdraft are rejected
+					}
+			});
+		}
+		executor.shutdown();
+		// Reports never block the transfers, and always see every account once
+		while (!executor.isTerminated())
+			assertEquals(2000, reports.balances().getCount());
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		assertEquals(total, reports.balances().getSum(), delta);
+	}
+}
@@ -0,0 +1,156 @@
+package perez.ruben.bank.reports.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.accounts.StripedAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.reports.BalanceRangeIndex;
+import perez.ruben.bank.store.AccountStore;
+
+public class BalanceRangeIndexTest {
+
+	@Test
+	public void testRangeQueries() throws OverdraftException {
+
+		AccountStore store = new AccountStore();
+		BalanceRangeIndex index = new BalanceRangeIndex();
+		store.addListener(index);
+
+		CheckingAccount a = new CheckingAccount(1, "Owner", -100);
+		CheckingAccount b = new CheckingAccount(2, "Owner", -1000);
+		StripedAccount c = new StripedAccount(3, "Owner", -100, 2);
+		SavingsAccount d = new SavingsAccount(4, "Owner", 0.02);
+		Account e = new Account(5, "Owner");
+		for (Account account : Arrays.asList(a, b, c, d, e))
+			store.add(account);
+		a.deposit(-95);
+		b.deposit(-200);
+		c.deposit(-50);
+		d.deposit(5000);
+		e.deposit(10);
+
+		assertEquals(Arrays.asList(2L, 1L, 3L), index.balancesBelow(CheckingAccount.class, 0));
+		assertEquals(Arrays.asList(2L), index.balancesBelow(CheckingAccount.class, -100));
+		assertEquals(Arrays.asList(3L), index.balancesBelow(StripedAccount.class, 0));
+		assertEquals(Arrays.asList(4L), index.balancesAbove(SavingsAccount.class, 1000));
+		assertEquals(Arrays.asList(5L, 4L), index.balancesAbove(Account.class, 0));
+		assertEquals(Arrays.asList(1L, 3L, 5L), index.balancesBetween(Account.class, -95, 10));
+		assertEquals(Collections.emptyList(), index.balancesBetween(Account.class, 10, -95));
+
+		// 95%, 20% and 50% of the overdraft
+		assertEquals(Arrays.asList(1L), index.utilizationAbove(0.9));
+		assertEquals(Arrays.asList(3L, 1L), index.utilizationAbove(0.2));
+
+		// Transfers, changes to the overdraft and removals are followed
+		a.transfer(-60, b);
+		b.setOverdraft(-280);
+		assertEquals(Arrays.asList(2L, 3L, 1L), index.balancesBelow(CheckingAccount.class, 0));
+		assertEquals(Arrays.asList(2L), index.utilizationAbove(0.9));
+		c.deposit(60);
+		c.consolidate();
+		assertEquals(Arrays.asList(2L, 1L), index.balancesBelow(CheckingAccount.class, 0));
+		store.remove(b);
+		assertEquals(Arrays.asList(1L), index.balancesBelow(CheckingAccount.class, 0));
+		assertEquals(Collections.emptyList(), index.utilizationAbove(0.9));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+
+		AccountStore store = new AccountStore();
+		List<CheckingAccount> accounts = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			CheckingAccount account = new CheckingAccount(i, "Owner " + i, -1000);
+			accounts.add(account);
+			store.add(account);
+		}
+		// Registered late, so it is loaded with the accounts already in the store
+		BalanceRangeIndex index = new BalanceRangeIndex();
+		store.addListener(index);
+		index.load(store.accounts());
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int seed = t;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 5000; i++) {
+					CheckingAccount from = accounts.get((i * 7 + seed * 13) % 100);
+					CheckingAccount to = accounts.get((i * 11 + seed * 17 + 1) % 100);
+					if (from != to) {
+						try {
+							from.transfer(1 + i % 5, to);
+						} catch (OverdraftException e) {
+							// OK!
+						}
+					}
+				}
+				return null;
+			}));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		for (Future<?> f : futures)
+			f.get();
+
+		// Every account is indexed once, with its final balance
+		List<Long> ids = index.balancesBetween(Account.class, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+		assertEquals(100, ids.size());
+		double previous = Double.NEGATIVE_INFINITY;
+		for (long id : ids) {
+			double balance = store.get(id).getBalance();
+			assertTrue(balance >= previous);
+			previous = balance;
+		}
+		long negative = accounts.stream().filter(account -> account.getBalance() < 0).count();
+		assertEquals(negative, index.balancesBelow(CheckingAccount.class, 0).size());
+		assertEquals(negative, index.utilizationAbove(0).size());
+	}
+
+	@Test
+	public void testLoadWhileAccountsAreAdded() throws Exception {
+
+		AccountStore store = new AccountStore();
+		for (int i = 0; i < 5000; i++)
+			store.add(new CheckingAccount(i, "Owner " + i, -100));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> adder = executor.submit(() -> {
+			for (int i = 5000; i < 10000; i++) {
+				CheckingAccount account = new CheckingAccount(i, "Owner " + i, -100);
+				store.add(account);
+				account.deposit(-i % 100);
+			}
+			return null;
+		});
+
+		// Registered and then loaded while accounts keep coming: those seen both ways are indexed once
+		BalanceRangeIndex index = new BalanceRangeIndex();
+		store.addListener(index);
+		index.load(store.accounts());
+		adder.get();
+		executor.shutdown();
+
+		assertEquals(10000, index.size());
+		assertEquals(10000, index.balancesBetween(Account.class, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).size());
+		long negative = store.stream().filter(account -> account.getBalance() < 0).count();
+		assertEquals(negative, index.balancesBelow(CheckingAccount.class, 0).size());
+		assertEquals(negative, index.utilizationAbove(0).size());
+	}
+}
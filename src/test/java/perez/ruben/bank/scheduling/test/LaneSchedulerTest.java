@@ -0,0 +1,172 @@
+package perez.ruben.bank.scheduling.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.scheduling.BatchJob;
+import perez.ruben.bank.scheduling.Lane;
+import perez.ruben.bank.scheduling.LaneReport;
+import perez.ruben.bank.scheduling.LaneScheduler;
+
+public class LaneSchedulerTest {
+
+	private final double delta = 0.0001;
+
+	private static LaneScheduler scheduler(int workers, int batchLocks) {
+		return new LaneScheduler(workers, 1, batchLocks, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(10),
+				TimeUnit.SECONDS.toNanos(10));
+	}
+
+	@Test
+	public void testInteractiveOperationsGoFirst() throws Exception {
+
+		List<SavingsAccount> accounts = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			SavingsAccount account = new SavingsAccount(i, "Owner " + i, 0.1);
+			account.deposit(100);
+			accounts.add(account);
+		}
+		CheckingAccount checking = new CheckingAccount(100, "Owner", 0);
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		try (LaneScheduler scheduler = scheduler(1, 1)) {
+			AtomicInteger submitted = new AtomicInteger();
+			BatchJob job = scheduler.submitBatch(accounts, account -> {
+				account.payInterest();
+				events.add("b" + account.getId());
+				// The slice yields right after this account
+				if (account.getId() == 10)
+					scheduler.submit(() -> events.add("i" + submitted.incrementAndGet()));
+			});
+			// Queued after the job, but run before it
+			Future<Boolean> deposit = scheduler.submit(() -> {
+				checking.deposit(10);
+				return events.add("i0");
+			});
+			scheduler.start();
+
+			assertTrue(deposit.get());
+			assertTrue(job.await(10, TimeUnit.SECONDS));
+			assertEquals(20, job.getProcessed());
+			assertEquals(0, job.getFailed());
+			assertEquals(22, events.size());
+			assertEquals("i0", events.get(0));
+			assertEquals("b10", events.get(11));
+			assertEquals("i1", events.get(12));
+			assertEquals("b11", events.get(13));
+			for (SavingsAccount account : accounts)
+				assertEquals(110, account.getBalance(), delta);
+			assertEquals(10, checking.getBalance(), delta);
+
+			LaneReport interactive = scheduler.getReport(Lane.INTERACTIVE);
+			assertEquals(2, interactive.getCount());
+			assertEquals(1, interactive.getAttainment(), delta);
+			// One slice before the operation and one after it
+			assertEquals(2, scheduler.getReport(Lane.BATCH).getCount());
+		}
+	}
+
+	@Test
+	public void testRejectedStepsAreCounted() throws Exception {
+
+		List<CheckingAccount> accounts = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			CheckingAccount account = new CheckingAccount(i, "Owner " + i, -100);
+			account.deposit(i % 2 == 0 ? 50 : -50);
+			accounts.add(account);
+		}
+
+		try (LaneScheduler scheduler = scheduler(2, 1)) {
+			scheduler.start();
+			// The accounts already below -20 keep their overdraft
+			BatchJob limits = scheduler.submitBatch(accounts, account -> account.setOverdraft(-20));
+			assertTrue(limits.await(10, TimeUnit.SECONDS));
+			assertEquals(5, limits.getProcessed());
+			assertEquals(5, limits.getFailed());
+			for (CheckingAccount account : accounts)
+				assertEquals(account.getId() % 2 == 0 ? -20 : -100, account.getOverdraft(), delta);
+
+			BatchJob withdrawals = scheduler.submitBatch(accounts, account -> account.deposit(-60));
+			assertTrue(withdrawals.await(10, TimeUnit.SECONDS));
+			assertEquals(5, withdrawals.getProcessed());
+			assertEquals(5, withdrawals.getFailed());
+
+			BatchJob broken = scheduler.submitBatch(accounts, account -> {
+				throw new IllegalStateException("Broken");
+			});
+			assertTrue(broken.await(10, TimeUnit.SECONDS));
+			assertEquals(0, broken.getProcessed());
+			assertTrue(broken.getError() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testBatchLocksAreLimited() throws Exception {
+
+		List<CheckingAccount> accounts = new ArrayList<>();
+		for (int i = 0; i < 200; i++)
+			accounts.add(new CheckingAccount(i, "Owner " + i, -1000));
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		try (LaneScheduler scheduler = new LaneScheduler(4, 1, 2, TimeUnit.MICROSECONDS.toNanos(50),
+				TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(1))) {
+			List<BatchJob> jobs = new ArrayList<>();
+			for (int j = 0; j < 6; j++)
+				jobs.add(scheduler.submitBatch(accounts, account -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						account.deposit(1);
+						Thread.yield();
+					} finally {
+						running.decrementAndGet();
+					}
+				}));
+			scheduler.start();
+			for (BatchJob job : jobs) {
+				assertTrue(job.await(30, TimeUnit.SECONDS));
+				assertEquals(200, job.getProcessed());
+			}
+		}
+		assertTrue(maxRunning.get() <= 2);
+		for (CheckingAccount account : accounts)
+			assertEquals(6, account.getBalance(), delta);
+	}
+
+	@Test
+	public void testClose() throws InterruptedException, OverdraftException {
+
+		List<SavingsAccount> accounts = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+			accounts.add(new SavingsAccount(i, "Owner " + i, 0.1));
+
+		LaneScheduler scheduler = scheduler(1, 1);
+		BatchJob job = scheduler.submitBatch(accounts, SavingsAccount::payInterest);
+		Future<Integer> op = scheduler.submit(() -> 1);
+		scheduler.close();
+
+		assertTrue(job.await(1, TimeUnit.SECONDS));
+		assertTrue(job.isCancelled());
+		assertEquals(0, job.getProcessed());
+		assertTrue(op.isCancelled());
+		try {
+			scheduler.submit(() -> 1);
+			fail("The scheduler is closed");
+		} catch (IllegalStateException e) {
+			// OK!
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package perez.ruben.bank.scheduling.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.currency.CurrencyRegistry;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.scheduling.HierarchicalTimingWheel;
+import perez.ruben.bank.scheduling.StandingOrder;
+import perez.ruben.bank.scheduling.StandingOrderScheduler;
+
+public class StandingOrderSchedulerTest {
+
+	private final double delta = 0.0001;
+
+	@Test
+	public void testTimersExpireOnTime() {
+
+		HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+		Random random = new Random(42);
+		List<HierarchicalTimingWheel.Timeout<Long>> timeouts = new ArrayList<>();
+		Set<Long> pending = new HashSet<>();
+		for (int i = 0; i < 20000; i++) {
+			// Deadlines from the past to far beyond the span of the first levels
+			long deadline = (long) (random.nextDouble() * random.nextDouble() * 2_000_000) - 100;
+			long key = deadline * 100_000 + i;
+			timeouts.add(wheel.schedule(key, deadline));
+			pending.add(key);
+		}
+		assertEquals(20000, wheel.size());
+
+		// Cancel every tenth timer
+		for (int i = 0; i < timeouts.size(); i += 10) {
+			assertTrue(wheel.cancel(timeouts.get(i)));
+			assertFalse(wheel.cancel(timeouts.get(i)));
+			pending.remove(timeouts.get(i).getItem());
+		}
+
+		long now = 0;
+		while (!pending.isEmpty()) {
+			now += 1 + random.nextInt(2000);
+			for (long key : wheel.advance(now)) {
+				long deadline = Math.floorDiv(key, 100_000);
+				assertTrue(pending.remove(key));
+				// Never early, and expired by the first call after the deadline
+				assertTrue(deadline <= now);
+				assertTrue(deadline < 0 || now - deadline < 2000 + 10);
+			}
+			// Deadlines are rounded up to the next tick
+			for (long key : pending)
+				assertTrue(-Math.floorDiv(-Math.floorDiv(key, 100_000), 10) * 10 > now);
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testRecurringOrders() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(clock::get, 100, 2, 1000);
+
+		CheckingAccount payer = new CheckingAccount("Payer", -1000);
+		CheckingAccount payee = new CheckingAccount("Payee");
+		payer.deposit(1000);
+
+		StandingOrder monthly = new StandingOrder(payer, payee, 100, 500, 10_000);
+		StandingOrder once = new StandingOrder(payer, payee, 50, 800, 0);
+		scheduler.schedule(monthly);
+		scheduler.schedule(once);
+
+		clock.set(499);
+		assertEquals(0, scheduler.runDue());
+		clock.set(500);
+		assertEquals(1, scheduler.runDue());
+		assertEquals(100, payee.getBalance(), delta);
+		assertEquals(10_500, monthly.getNextDue());
+
+		clock.set(25_000);
+		// The single order and the second occurrence are executed together, the third one on the next tick
+		assertEquals(2, scheduler.runDue());
+		assertEquals(250, payee.getBalance(), delta);
+		clock.set(25_100);
+		assertEquals(1, scheduler.runDue());
+		assertEquals(350, payee.getBalance(), delta);
+		assertEquals(3, monthly.getExecutions());
+		assertEquals(1, once.getExecutions());
+		assertTrue(once.isCancelled());
+		assertEquals(1, scheduler.getPending());
+
+		assertTrue(scheduler.cancel(monthly));
+		assertFalse(scheduler.cancel(monthly));
+		assertEquals(0, scheduler.getPending());
+		clock.set(100_000);
+		assertEquals(0, scheduler.runDue());
+		assertEquals(350, payee.getBalance(), delta);
+	}
+
+	@Test
+	public void testRetriesOnOverdraft() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(clock::get, 100, 2, 1000);
+
+		CheckingAccount payer = new CheckingAccount("Payer");
+		CheckingAccount payee = new CheckingAccount("Payee");
+		StandingOrder order = new StandingOrder(payer, payee, 100, 1000, 10_000);
+		scheduler.schedule(order);
+
+		// First attempt and first retry fail, then the money arrives
+		clock.set(1000);
+		assertEquals(1, scheduler.runDue());
+		clock.set(2000);
+		assertEquals(1, scheduler.runDue());
+		payer.deposit(100);
+		clock.set(3000);
+		assertEquals(1, scheduler.runDue());
+		assertEquals(100, payee.getBalance(), delta);
+		assertEquals(1, order.getExecutions());
+		assertEquals(0, order.getFailures());
+
+		// The next occurrence fails on every retry and is skipped
+		for (long t = 11_000; t <= 13_000; t += 1000) {
+			clock.set(t);
+			assertEquals(1, scheduler.runDue());
+		}
+		assertEquals(1, order.getFailures());
+		assertEquals(21_000, order.getNextDue());
+		assertEquals(1, scheduler.getPending());
+
+		payer.deposit(100);
+		clock.set(21_000);
+		assertEquals(1, scheduler.runDue());
+		assertEquals(200, payee.getBalance(), delta);
+		assertEquals(2, order.getExecutions());
+	}
+
+	@Test
+	public void testRejectedOrdersDoNotStopTheBatch() throws OverdraftException {
+
+		CurrencyRegistry.getDefault().register("USD", 2);
+		AtomicLong clock = new AtomicLong(0);
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(clock::get, 100, 2, 1000);
+
+		CheckingAccount payer = new CheckingAccount("Payer", -1000);
+		CheckingAccount dollars = new CheckingAccount("Dollar Payee");
+		try {
+			dollars.setCurrency("USD");
+			new StandingOrder(payer, dollars, 100, 1000, 10_000);
+			fail("A standing order between currencies was accepted");
+		} catch (IllegalArgumentException e) {
+			// OK!
+		}
+
+		// The payee changes its currency once the order is scheduled
+		CheckingAccount changed = new CheckingAccount("Changed Payee");
+		List<StandingOrder> orders = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			CheckingAccount payee = i == 10 ? changed : new CheckingAccount("Payee " + i);
+			orders.add(new StandingOrder(payer, payee, 10, 1000, 10_000));
+			scheduler.schedule(orders.get(i));
+		}
+		changed.setCurrency("USD");
+
+		clock.set(1000);
+		assertEquals(20, scheduler.runDue());
+		for (int i = 0; i < 20; i++) {
+			// Rejected right away, without retries, and kept for the next occurrence
+			assertEquals(i == 10 ? 0 : 1, orders.get(i).getExecutions());
+			assertEquals(i == 10 ? 1 : 0, orders.get(i).getFailures());
+			assertEquals(11_000, orders.get(i).getNextDue());
+		}
+		assertEquals(-190, payer.getBalance(), delta);
+		assertEquals(20, scheduler.getPending());
+	}
+
+	@Test
+	public void testManyOrdersInParallel() throws OverdraftException {
+
+		AtomicLong clock = new AtomicLong(0);
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(clock::get, 1000, 0, 0);
+
+		CheckingAccount[] accounts = new CheckingAccount[100];
+		for (int i = 0; i < accounts.length; i++)
+			accounts[i] = new CheckingAccount("Owner " + i, -1_000_000);
+		for (int i = 0; i < 100_000; i++)
+			scheduler.schedule(new StandingOrder(accounts[i % 100], accounts[(i * 7 + 1) % 100], 1, 1000 + (i % 50) * 1000, 86_400_000));
+		assertEquals(100_000, scheduler.getPending());
+
+		int executed = 0;
+		for (long t = 1000; t <= 50_000; t += 1000) {
+			clock.set(t);
+			executed += scheduler.runDue();
+		}
+		assertEquals(100_000, executed);
+		assertEquals(100_000, scheduler.getPending());
+
+		double total = 0;
+		for (CheckingAccount a : accounts)
+			total += a.getBalance();
+		assertEquals(0, total, delta);
+	}
+}
@@ -0,0 +1,311 @@
+package perez.ruben.bank.shard.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.shard.CoordinatorLog;
+import perez.ruben.bank.shard.ShardConnection;
+import perez.ruben.bank.shard.ShardRouter;
+import perez.ruben.bank.shard.ShardServer;
+import perez.ruben.bank.shard.TransactionCoordinator;
+
+public class ShardRouterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private double delta = 0.0001;
+	private List<ShardServer> servers = new ArrayList<>();
+	private List<Process> processes = new ArrayList<>();
+
+	@After
+	public void stopShards() throws IOException {
+		for (ShardServer server : servers)
+			server.close();
+		for (Process process : processes)
+			process.destroy();
+	}
+
+	private List<InetSocketAddress> startShards(int nShards) throws IOException {
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (int i = 0; i < nShards; i++) {
+			ShardServer server = new ShardServer(0);
+			server.start();
+			servers.add(server);
+			addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+		}
+		return addresses;
+	}
+
+	private Path logFile() throws IOException {
+		return folder.newFile().toPath();
+	}
+
+	@Test
+	public void testRoutedOperations() throws IOException, OverdraftException {
+
+		try (ShardRouter router = new ShardRouter(startShards(3), 0, logFile())) {
+			for (long id = 0; id < 6; id++) {
+				router.openAccount(id, "Owner " + id, -100);
+				router.deposit(id, 1000);
+			}
+
+			// Same shard (0 and 3) and different shards (1 and 2)
+			router.transfer(0, 3, 250);
+			router.transfer(1, 2, -300);
+
+			assertEquals(750, router.getBalance(0), delta);
+			assertEquals(1250, router.getBalance(3), delta);
+			assertEquals(1300, router.getBalance(1), delta);
+			assertEquals(700, router.getBalance(2), delta);
+
+			router.setOverdraft(4, -2000);
+			router.transfer(4, 5, 2500);
+			assertEquals(-1500, router.getBalance(4), delta);
+			assertEquals(3500, router.getBalance(5), delta);
+		}
+	}
+
+	@Test
+	public void testFailedCrossShardTransfer() throws IOException, OverdraftException {
+
+		try (ShardRouter router = new ShardRouter(startShards(2), 0, logFile())) {
+			router.openAccount(10, "Poor Owner", -100);
+			router.openAccount(11, "Rich Owner", 0);
+			router.deposit(10, 50);
+			router.deposit(11, 5000);
+
+			try {
+				router.transfer(10, 11, 500);
+				fail("Cross-shard transfer was successful but should have failed because of an overdraft");
+			} catch (OverdraftException oe) {
+				// OK!
+			}
+
+			try {
+				router.transfer(10, 11, -5001);
+				fail("Cross-shard transfer was successful but should have failed because of an overdraft");
+			} catch (OverdraftException oe) {
+				// OK!
+			}
+
+			assertEquals(50, router.getBalance(10), delta);
+			assertEquals(5000, router.getBalance(11), delta);
+		}
+	}
+
+	@Test
+	public void testUnknownAccount() throws IOException, OverdraftException {
+
+		try (ShardRouter router = new ShardRouter(startShards(2), 0, logFile())) {
+			try {
+				router.deposit(42, 100);
+				fail("A deposit to an account that does not exist did not fail");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+		}
+	}
+
+	@Test
+	public void testConnectionUsableAfterRejection() throws IOException, OverdraftException {
+
+		try (ShardConnection connection = new ShardConnection(startShards(1).get(0))) {
+			connection.open(0, "Owner", -100);
+
+			// Each rejected request must be read whole, or the next one would be garbled
+			try {
+				connection.deposit(42, 100);
+				fail("A deposit to an account that does not exist did not fail");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+			try {
+				connection.setOverdraft(42, -100);
+				fail("Setting the overdraft of an account that does not exist did not fail");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+			try {
+				connection.transfer(42, 0, 100);
+				fail("A transfer from an account that does not exist did not fail");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+			try {
+				connection.prepare(1, 42, 100);
+				fail("Preparing a posting to an account that does not exist did not fail");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+
+			assertEquals(100, connection.deposit(0, 100), delta);
+			assertEquals(100, connection.getBalance(0), delta);
+		}
+	}
+
+	@Test
+	public void testCoordinatorTransferWithinAShard() throws IOException, OverdraftException {
+
+		try (ShardConnection shard = new ShardConnection(startShards(1).get(0));
+				TransactionCoordinator coordinator = new TransactionCoordinator(0, Collections.singletonList(shard), logFile())) {
+			shard.open(0, "First Owner", 0);
+			shard.open(1, "Second Owner", 0);
+			shard.deposit(0, 1000);
+
+			// Both legs land on the same shard, and neither is lost
+			coordinator.transfer(0, 0, 0, 1, 300);
+			coordinator.transfer(0, 0, 0, 1, -100);
+			assertEquals(800, shard.getBalance(0), delta);
+			assertEquals(200, shard.getBalance(1), delta);
+		}
+	}
+
+	@Test
+	public void testDuplicatePrepares() throws Exception {
+
+		InetSocketAddress address = startShards(1).get(0);
+		try (ShardConnection shard = new ShardConnection(address)) {
+			shard.open(0, "First Owner", 0);
+			shard.open(1, "Second Owner", 0);
+			shard.deposit(0, 1000);
+
+			// Retries of the same posting, racing on several connections, withdraw once
+			int nConnections = 4;
+			ExecutorService executor = Executors.newFixedThreadPool(nConnections);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < nConnections; c++) {
+				futures.add(executor.submit(() -> {
+					try (ShardConnection retry = new ShardConnection(address)) {
+						for (long transaction = 0; transaction < 100; transaction++)
+							retry.prepare(transaction, 0, -1);
+					}
+					return null;
+				}));
+			}
+			executor.shutdown();
+			for (Future<?> f : futures)
+				f.get();
+			assertEquals(900, shard.getBalance(0), delta);
+
+			// Another posting of a prepared transaction is rejected, not ignored
+			try {
+				shard.prepare(0, 1, 1);
+				fail("A second posting of the transaction was accepted");
+			} catch (IllegalArgumentException iae) {
+				// OK!
+			}
+
+			for (long transaction = 0; transaction < 100; transaction++)
+				shard.abort(transaction);
+			assertEquals(1000, shard.getBalance(0), delta);
+			assertEquals(0, shard.inDoubt().length);
+		}
+	}
+
+	@Test
+	public void testRecoveryAfterCoordinatorCrash() throws IOException, OverdraftException {
+
+		int coordinatorId = 7;
+		long firstTransaction = (long) coordinatorId << 40;
+		List<InetSocketAddress> addresses = startShards(2);
+		Path log = logFile();
+
+		try (ShardConnection first = new ShardConnection(addresses.get(0));
+				ShardConnection second = new ShardConnection(addresses.get(1))) {
+			first.open(0, "First Owner", 0);
+			second.open(1, "Second Owner", 0);
+			first.deposit(0, 1000);
+
+			// A coordinator "crashes" after taking the commit decision of a transaction,
+			// after preparing another one and after preparing a third one it did not log
+			try (CoordinatorLog crashed = new CoordinatorLog(log)) {
+				crashed.begin(firstTransaction, 0, 1);
+				first.prepare(firstTransaction, 0, -100);
+				second.prepare(firstTransaction, 1, 100);
+				crashed.commit(firstTransaction);
+
+				crashed.begin(firstTransaction + 1, 0, 1);
+				first.prepare(firstTransaction + 1, 0, -200);
+				second.prepare(firstTransaction + 1, 1, 200);
+			}
+			first.prepare(firstTransaction + 2, 0, -300);
+
+			// The withdrawals are applied on prepare
+			assertEquals(400, first.getBalance(0), delta);
+			assertEquals(0, second.getBalance(1), delta);
+
+			try (ShardRouter router = new ShardRouter(addresses, coordinatorId, log)) {
+				assertEquals(900, router.getBalance(0), delta);
+				assertEquals(100, router.getBalance(1), delta);
+				assertEquals(0, first.inDoubt().length);
+				assertEquals(0, second.inDoubt().length);
+
+				// New transactions do not reuse the ids found in the log
+				router.transfer(0, 1, 400);
+				assertEquals(500, router.getBalance(0), delta);
+				assertEquals(500, router.getBalance(1), delta);
+			}
+		}
+	}
+
+	private InetSocketAddress startShardProcess() throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ShardServer.class.getName(), "0");
+		builder.redirectErrorStream(true);
+		Process process = builder.start();
+		processes.add(process);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		String line = reader.readLine();
+		if (line == null || !line.startsWith("Shard listening on port "))
+			throw new IOException("The shard process did not start: " + line);
+		int port = Integer.parseInt(line.substring("Shard listening on port ".length()).trim());
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+	}
+
+	@Test
+	public void testShardsInSeparateProcesses() throws IOException, OverdraftException {
+
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		addresses.add(startShardProcess());
+		addresses.add(startShardProcess());
+
+		try (ShardRouter router = new ShardRouter(addresses, 1, logFile())) {
+			int nAccounts = 10;
+			for (long id = 0; id < nAccounts; id++) {
+				router.openAccount(id, "Owner " + id, 0);
+				router.deposit(id, 100);
+			}
+
+			for (long id = 0; id < nAccounts; id++)
+				router.transfer(id, (id + 1) % nAccounts, 10 * id);
+
+			double total = 0;
+			for (long id = 0; id < nAccounts; id++)
+				total += router.getBalance(id);
+			assertEquals(100 * nAccounts, total, delta);
+			assertEquals(190, router.getBalance(0), delta);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package perez.ruben.bank.store.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.store.TieredAccountStore;
+
+public class TieredAccountStoreTest {
+
+	private final double delta = 0.0001;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file() {
+		return folder.getRoot().toPath().resolve("accounts.dat");
+	}
+
+	@Test
+	public void testColdAccountsArePagedOut() throws IOException, OverdraftException {
+
+		try (TieredAccountStore store = new TieredAccountStore(file(), 10)) {
+			for (int i = 0; i < 100; i++) {
+				Account account;
+				if (i % 2 == 0)
+					account = new CheckingAccount(i, "Owner " + i, -50);
+				else
+					account = new SavingsAccount(i, "Owner " + i, 0.02);
+				account.deposit(i);
+				store.add(account);
+			}
+			assertEquals(10, store.getResidentCount());
+			assertTrue(store.isResident(99));
+			assertFalse(store.isResident(0));
+
+			// Loaded back transparently, with all their state
+			for (int i = 0; i < 100; i++)
+				store.deposit(i, -i - (i % 2 == 0 ? 50 : 0));
+			for (int i = 0; i < 100; i++)
+				assertEquals(i % 2 == 0 ? -50 : 0, store.getBalance(i), delta);
+			assertEquals(10, store.getResidentCount());
+
+			try {
+				store.deposit(2, -0.01);
+				fail("The overdraft was exceeded");
+			} catch (OverdraftException e) {
+				// OK!
+			}
+
+			store.deposit(98, 100);
+			store.transfer(98, 0, 10);
+			assertEquals(40, store.getBalance(98), delta);
+			assertEquals(-40, store.getBalance(0), delta);
+
+			try {
+				store.add(new Account(5, "Owner"));
+				fail("The account already exists");
+			} catch (IllegalArgumentException e) {
+				// OK!
+			}
+			try {
+				store.getBalance(100);
+				fail("The account does not exist");
+			} catch (IllegalArgumentException e) {
+				// OK!
+			}
+		}
+	}
+
+	@Test
+	public void testHotAccountsStayResident() throws IOException, OverdraftException {
+
+		try (TieredAccountStore store = new TieredAccountStore(file(), 4)) {
+			for (int i = 0; i < 4; i++)
+				store.add(new CheckingAccount(i, "Owner " + i, 0));
+
+			// Account 0 is used between every new account, so once the clock has swept all the frames for the
+			// first time (when all of them are referenced), it always finds another victim
+			int pagedOut = 0;
+			for (int i = 4; i < 50; i++) {
+				store.deposit(0, 1);
+				store.add(new CheckingAccount(i, "Owner " + i, 0));
+				if (!store.isResident(0))
+					pagedOut++;
+			}
+			assertEquals(1, pagedOut);
+			assertEquals(46, store.getBalance(0), delta);
+		}
+	}
+
+	@Test
+	public void testPinnedAccounts() throws IOException, OverdraftException {
+
+		try (TieredAccountStore store = new TieredAccountStore(file(), 2)) {
+			// Holds are not kept in the file, so the account can not be paged out
+			Account held = new Account(0, "Owner");
+			held.deposit(10);
+			held.placeHold(5);
+			store.add(held);
+			StringBuilder name = new StringBuilder();
+			for (int i = 0; i < 200; i++)
+				name.append('x');
+			store.add(new Account(1, name.toString()));
+
+			try {
+				store.add(new Account(2, "Owner"));
+				fail("No account can be paged out");
+			} catch (IllegalStateException e) {
+				// OK!
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentTransfersWithEviction() throws Exception {
+
+		try (TieredAccountStore store = new TieredAccountStore(file(), 16)) {
+			for (int i = 0; i < 200; i++)
+				store.add(new CheckingAccount(i, "Owner " + i, -1_000_000));
+
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			Future<?>[] futures = new Future<?>[4];
+			for (int t = 0; t < 4; t++) {
+				int seed = t;
+				futures[t] = executor.submit(() -> {
+					for (int i = 0; i < 5000; i++) {
+						long from = (i * 7 + seed * 13) % 200;
+						long to = (i * 11 + seed * 17 + 1) % 200;
+						if (from != to)
+							store.transfer(from, to, 1);
+						store.getBalance(to);
+					}
+					return null;
+				});
+			}
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+			for (Future<?> f : futures)
+				f.get();
+
+			double total = 0;
+			for (int i = 0; i < 200; i++)
+				total += store.getBalance(i);
+			assertEquals(0, total, delta);
+			assertTrue(store.getResidentCount() <= 16);
+		}
+	}
+}
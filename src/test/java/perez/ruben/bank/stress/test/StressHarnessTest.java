@@ -0,0 +1,142 @@
+package perez.ruben.bank.stress.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+import perez.ruben.bank.accounts.Account;
+import perez.ruben.bank.accounts.CheckingAccount;
+import perez.ruben.bank.accounts.SavingsAccount;
+import perez.ruben.bank.exception.OverdraftException;
+import perez.ruben.bank.stress.CheckResult;
+import perez.ruben.bank.stress.ConservationChecker;
+import perez.ruben.bank.stress.History;
+import perez.ruben.bank.stress.LinearizabilityChecker;
+import perez.ruben.bank.stress.OperationType;
+import perez.ruben.bank.stress.StressHarness;
+import perez.ruben.bank.stress.StressReport;
+import perez.ruben.bank.stress.StressRunner;
+import perez.ruben.bank.stress.WorkloadConfig;
+
+public class StressHarnessTest {
+
+	// Fixed, so that a failure can be reproduced
+	private static final long SEED = 42;
+
+	// An account that forgets to synchronize its deposits, and is slow enough that they always overlap
+	private static class RacyAccount extends Account {
+
+		RacyAccount(String owner) {
+			super(owner);
+		}
+
+		@Override
+		protected void post(double amount, Account counterpart) throws OverdraftException {
+			double newBalance = balance + amount;
+			LockSupport.parkNanos(100_000);
+			if (newBalance >= 0)
+				balance = newBalance;
+			else
+				throw new OverdraftException(amount, balance);
+		}
+	}
+
+	private WorkloadConfig depositsAndReads() {
+		return new WorkloadConfig()
+				.setSeed(SEED)
+				.setThreads(4)
+				.setOperationsPerThread(5000)
+				.setWeight(OperationType.DEPOSIT, 80)
+				.setWeight(OperationType.READ, 20);
+	}
+
+	@Test
+	public void testRacesAreDetected() throws InterruptedException, OverdraftException {
+
+		Account[] accounts = new Account[2];
+		for (int i = 0; i < accounts.length; i++) {
+			accounts[i] = new RacyAccount("Racy Owner");
+			accounts[i].deposit(1000);
+		}
+
+		WorkloadConfig config = depositsAndReads().setOperationsPerThread(500);
+		History history = new StressRunner(config).run(accounts);
+
+		assertFalse(config.toString(), new LinearizabilityChecker().check(history).isOk());
+		assertFalse(config.toString(), new ConservationChecker().check(history).isOk());
+	}
+
+	@Test
+	public void testAccount() throws InterruptedException, OverdraftException {
+
+		Account[] accounts = { new Account("First Owner"), new Account("Second Owner") };
+		for (Account acc : accounts)
+			acc.deposit(1000);
+
+		History history = new StressRunner(depositsAndReads().setSkew(1.0)).run(accounts);
+
+		CheckResult linearizability = new LinearizabilityChecker().check(history);
+		assertTrue(linearizability.toString(), linearizability.isOk());
+		CheckResult conservation = new ConservationChecker().check(history);
+		assertTrue(conservation.toString(), conservation.isOk());
+	}
+
+	@Test
+	public void testCheckingAccount() throws InterruptedException, OverdraftException {
+
+		WorkloadConfig config = new WorkloadConfig()
+				.setSeed(SEED)
+				.setThreads(4)
+				.setOperationsPerThread(5000)
+				.setSkew(1.0)
+				.setWeight(OperationType.DEPOSIT, 30)
+				.setWeight(OperationType.TRANSFER, 40)
+				.setWeight(OperationType.SET_OVERDRAFT, 10)
+				.setWeight(OperationType.READ, 20);
+
+		History history = new StressRunner(config).run(StressHarness.checkingAccounts(4, 100, -100));
+
+		CheckResult linearizability = new LinearizabilityChecker().check(history);
+		assertTrue(linearizability.toString(), linearizability.isOk());
+		CheckResult conservation = new ConservationChecker().check(history);
+		assertTrue(conservation.toString(), conservation.isOk());
+	}
+
+	@Test
+	public void testSavingsAccount() throws InterruptedException, OverdraftException {
+
+		WorkloadConfig config = new WorkloadConfig()
+				.setSeed(SEED)
+				.setThreads(4)
+				.setOperationsPerThread(2000)
+				.setWeight(OperationType.DEPOSIT, 80)
+				.setWeight(OperationType.PAY_INTEREST, 5)
+				.setWeight(OperationType.READ, 15);
+
+		SavingsAccount[] accounts = StressHarness.savingsAccounts(2, 1000, 0.0078125);
+		History history = new StressRunner(config).run(accounts);
+
+		CheckResult linearizability = new LinearizabilityChecker().check(history);
+		assertTrue(linearizability.toString(), linearizability.isOk());
+		// Interest payments prevent checking the total
+		CheckResult conservation = new ConservationChecker().check(history);
+		assertTrue(conservation.toString(), conservation.isOk());
+		assertEquals(1, conservation.getWarnings().size());
+	}
+
+	@Test
+	public void testReport() throws InterruptedException, OverdraftException {
+
+		History history = new StressRunner(depositsAndReads()).run(new CheckingAccount("Some Owner"));
+		StressReport report = new StressReport(history);
+
+		assertEquals(20000, report.getOperations());
+		assertEquals(20000, report.getLatencies(OperationType.DEPOSIT).getCount() + report.getLatencies(OperationType.READ).getCount());
+		assertTrue(report.getThroughput() > 0);
+		assertTrue(report.getLatencies(OperationType.DEPOSIT).getPercentile(0.5) <= report.getLatencies(OperationType.DEPOSIT).getMax());
+	}
+}
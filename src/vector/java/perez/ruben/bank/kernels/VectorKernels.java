@@ -0,0 +1,60 @@
+package perez.ruben.bank.kernels;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// The kernels with the Vector API, on the widest vectors of the CPU (the lanes left at the end use the scalar loop)
+//
+// Only built with the "vector" profile (JDK 17 or later), and loaded by AccountKernels#best.
+public class VectorKernels implements AccountKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private final ScalarKernels tail = new ScalarKernels();
+
+	@Override
+	public void interest(double[] balances, double[] rates, double[] out, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			DoubleVector b = DoubleVector.fromArray(SPECIES, balances, i);
+			DoubleVector r = DoubleVector.fromArray(SPECIES, rates, i);
+			b.mul(r).intoArray(out, i);
+		}
+		tail.interest(balances, rates, out, i, to);
+	}
+
+	@Override
+	public void project(double[] balances, double[] rates, double[] flows, double[] out, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			DoubleVector b = DoubleVector.fromArray(SPECIES, balances, i);
+			DoubleVector r = DoubleVector.fromArray(SPECIES, rates, i);
+			DoubleVector f = DoubleVector.fromArray(SPECIES, flows, i);
+			// Not fused, so the result is the same as the scalar one
+			b.mul(r).add(b).add(f).intoArray(out, i);
+		}
+		tail.project(balances, rates, flows, out, i, to);
+	}
+
+	@Override
+	public int breaches(double[] balances, double[] limits, double utilization, int[] out, int from, int to) {
+		int n = from;
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			DoubleVector b = DoubleVector.fromArray(SPECIES, balances, i);
+			DoubleVector l = DoubleVector.fromArray(SPECIES, limits, i);
+			VectorMask<Double> below = b.compare(VectorOperators.LT, l.mul(utilization));
+			// Most accounts are within their limits, so whole vectors are usually skipped
+			for (long bits = below.toLong(); bits != 0; bits &= bits - 1)
+				out[n++] = i + Long.numberOfTrailingZeros(bits);
+		}
+		return n - from + ScalarKernels.breaches(balances, limits, utilization, out, n, i, to);
+	}
+
+	@Override
+	public String toString() {
+		return "VectorKernels [lanes=" + SPECIES.length() + "]";
+	}
+}